@@ -2,10 +2,12 @@ package com.retailsense.ai.controller;
 
 import com.retailsense.ai.dto.AIInsightResponse;
 import com.retailsense.ai.service.AIInsightsService;
+import com.retailsense.common.version.DataVersions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -18,12 +20,18 @@ import java.util.Map;
 public class AIInsightsController {
 
     private final AIInsightsService aiInsightsService;
+    private final DataVersions dataVersions;
 
     @GetMapping
     public ResponseEntity<List<AIInsightResponse>> getAllInsights(
-            @RequestParam(required = false) String priority
+            @RequestParam(required = false) String priority,
+            WebRequest webRequest
     ) {
         log.info("GET /api/ai/insights?priority={}", priority);
+        // Insights show product names and stock, so both versions go in the tag
+        if (webRequest.checkNotModified(dataVersions.tag(DataVersions.Domain.INSIGHTS, DataVersions.Domain.PRODUCTS))) {
+            return null;
+        }
         return ResponseEntity.ok(aiInsightsService.getAllInsights(priority));
     }
 
@@ -3,10 +3,16 @@ package com.retailsense.ai.scheduler;
 import com.retailsense.ai.service.AIInsightsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * Nightly insight generation for every product. Off unless retailsense.ai.scheduler.enabled=true:
+ * each run makes one paid OpenAI call per product.
+ */
 @Component
+@ConditionalOnProperty(name = "retailsense.ai.scheduler.enabled", havingValue = "true")
 @RequiredArgsConstructor
 @Slf4j
 public class AIInsightsScheduler {
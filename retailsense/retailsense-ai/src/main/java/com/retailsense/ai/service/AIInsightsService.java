@@ -3,6 +3,7 @@ package com.retailsense.ai.service;
 import com.retailsense.ai.dto.AIInsightResponse;
 import com.retailsense.ai.model.AIInsight;
 import com.retailsense.ai.repository.AIInsightsRepository;
+import com.retailsense.common.version.DataVersions;
 import com.retailsense.product.model.Product;
 import com.retailsense.product.service.ProductService;
 import com.retailsense.sales.repository.SalesRepository;
@@ -26,6 +27,7 @@ public class AIInsightsService {
     private final ProductService productService;
     private final SalesRepository salesRepository;
     private final OpenAIService openAIService;
+    private final DataVersions dataVersions;
 
     public void generateInsightsForAllProducts() {
         log.info("Starting AI insights generation for all products");
@@ -91,6 +93,7 @@ public class AIInsightsService {
         insight.setConfidenceScore(BigDecimal.valueOf(0.85));
 
         insightsRepository.save(insight);
+        dataVersions.bump(DataVersions.Domain.INSIGHTS);
 
         return mapToResponse(insight);
     }
@@ -0,0 +1,69 @@
+package com.retailsense.analytics.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bounded Caffeine cache per analytics endpoint, keyed by the endpoint's parameters and
+ * the cache's generation (AnalyticsCacheKeys).
+ * Size and TTL come from retailsense.analytics.cache.spec; the TTL also rolls the
+ * day-based windows over at midnight. Caches are bound to Micrometer by Spring Boot,
+ * so hits, misses and evictions show up under /actuator/metrics (load time is bound below).
+ */
+@Configuration
+// Outside @SingleFlight, so a miss only joins loads of the same key generation
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class AnalyticsCacheConfig {
+
+    public static final String SALES_TREND = "analytics.sales-trend";
+    public static final String TOP_PRODUCTS = "analytics.top-products";
+    public static final String CATEGORY_DISTRIBUTION = "analytics.category-distribution";
+    public static final String REVENUE_SUMMARY = "analytics.revenue-summary";
+
+    public static final String CACHE_MANAGER = "analyticsCacheManager";
+    public static final String KEY_GENERATOR = "analyticsCacheKeys";
+
+    @Bean(CACHE_MANAGER)
+    public CacheManager analyticsCacheManager(
+            @Value("${retailsense.analytics.cache.spec:maximumSize=500,expireAfterWrite=60s,recordStats}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setCacheNames(List.of(SALES_TREND, TOP_PRODUCTS, CATEGORY_DISTRIBUTION, REVENUE_SUMMARY));
+        // Never cache null; analytics responses are always present
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+
+    /**
+     * Load count and total load time per cache. Boot's Caffeine binding only reports these
+     * for loading caches, while @Cacheable(sync = true) loads through Cache.get(key, loader).
+     */
+    @Bean
+    public MeterBinder analyticsCacheLoadMetrics(@Qualifier(CACHE_MANAGER) CacheManager analyticsCacheManager) {
+        return registry -> analyticsCacheManager.getCacheNames().forEach(name -> {
+            Cache<Object, Object> cache = ((CaffeineCache) analyticsCacheManager.getCache(name)).getNativeCache();
+            FunctionCounter.builder("cache.loads", cache, c -> c.stats().loadCount())
+                    .tag("cache", name)
+                    .description("Number of times an analytics result was computed")
+                    .register(registry);
+            TimeGauge.builder("cache.load.duration", cache, TimeUnit.NANOSECONDS, c -> c.stats().totalLoadTime())
+                    .tag("cache", name)
+                    .description("Total time spent computing analytics results")
+                    .register(registry);
+        });
+    }
+}
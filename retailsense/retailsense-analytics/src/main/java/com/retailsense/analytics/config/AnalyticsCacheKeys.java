@@ -0,0 +1,54 @@
+package com.retailsense.analytics.config;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache keys for the analytics caches: the method's parameters plus the cache's current
+ * generation. Invalidating a cache bumps its generation, so a load that read the database
+ * before the write committed stores its result under the old generation, where no later
+ * request looks, even if it finishes after the cache was cleared.
+ */
+@Component(AnalyticsCacheConfig.KEY_GENERATOR)
+public class AnalyticsCacheKeys implements KeyGenerator {
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<Method, String> cacheNames = new ConcurrentHashMap<>();
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Object[] key = new Object[params.length + 1];
+        key[0] = generation(cacheNames.computeIfAbsent(method, AnalyticsCacheKeys::cacheName)).get();
+        System.arraycopy(params, 0, key, 1, params.length);
+        return new SimpleKey(key);
+    }
+
+    /**
+     * Move the caches to a new generation; entries of earlier ones can no longer be read
+     */
+    public void invalidate(String... caches) {
+        for (String cache : caches) {
+            generation(cache).incrementAndGet();
+        }
+    }
+
+    private AtomicLong generation(String cache) {
+        return generations.computeIfAbsent(cache, name -> new AtomicLong());
+    }
+
+    private static String cacheName(Method method) {
+        Cacheable cacheable = AnnotatedElementUtils.findMergedAnnotation(method, Cacheable.class);
+        if (cacheable == null || cacheable.cacheNames().length != 1) {
+            throw new IllegalStateException("Analytics cache keys need exactly one cache name on " + method);
+        }
+        return cacheable.cacheNames()[0];
+    }
+}
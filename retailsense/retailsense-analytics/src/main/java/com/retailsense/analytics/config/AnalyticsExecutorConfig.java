@@ -0,0 +1,30 @@
+package com.retailsense.analytics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded pool for running independent analytics queries in parallel (e.g. the dashboard).
+ * When the queue is full the caller runs the task itself rather than failing.
+ */
+@Configuration
+public class AnalyticsExecutorConfig {
+
+    public static final String EXECUTOR = "analyticsExecutor";
+
+    @Bean(EXECUTOR)
+    public ThreadPoolTaskExecutor analyticsExecutor(
+            @Value("${retailsense.analytics.executor.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("analytics-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -1,12 +1,32 @@
 package com.retailsense.analytics.controller;
 
 import com.retailsense.analytics.dto.*;
+import com.retailsense.analytics.live.LiveMetricsBroadcaster;
 import com.retailsense.analytics.service.AnalyticsService;
+import com.retailsense.analytics.service.DashboardService;
+import com.retailsense.analytics.service.DashboardSnapshotter;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.sales.service.SalesService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * GETs carry an ETag built from the sales and product data versions plus today's date (windows
+ * move at midnight) and answer a matching If-None-Match with 304 before any query runs. The
+ * dashboard tag also carries the start of its sales summary window, which moves hourly.
+ * Snapshot dashboards and the live stream are not tagged.
+ */
 @RestController
 @RequestMapping("/api/analytics")
 @RequiredArgsConstructor
@@ -15,33 +35,132 @@ import org.springframework.web.bind.annotation.*;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final DashboardService dashboardService;
+    private final DashboardSnapshotter dashboardSnapshotter;
+    private final LiveMetricsBroadcaster liveMetricsBroadcaster;
+    private final SalesService salesService;
+    private final DataVersions dataVersions;
 
     @GetMapping("/sales-trend")
     public ResponseEntity<SalesTrendResponse> getSalesTrend(
-            @RequestParam(defaultValue = "7") int days
+            @RequestParam(defaultValue = "7") int days,
+            WebRequest webRequest
     ) {
         log.info("GET /api/analytics/sales-trend?days={}", days);
+        if (notModified(webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(analyticsService.getSalesTrend(days));
     }
 
+    /**
+     * approx=true answers from streaming sketches (bounded error, optional days window)
+     */
     @GetMapping("/top-products")
     public ResponseEntity<TopProductsResponse> getTopProducts(
             @RequestParam(defaultValue = "5") int limit,
-            @RequestParam(defaultValue = "revenue") String sortBy
+            @RequestParam(defaultValue = "revenue") String sortBy,
+            @RequestParam(defaultValue = "false") boolean approx,
+            @RequestParam(required = false) Integer days,
+            WebRequest webRequest
     ) {
-        log.info("GET /api/analytics/top-products?limit={}&sortBy={}", limit, sortBy);
+        log.info("GET /api/analytics/top-products?limit={}&sortBy={}&approx={}&days={}", limit, sortBy, approx, days);
+        if (notModified(webRequest)) {
+            return null;
+        }
+        if (approx) {
+            return ResponseEntity.ok(analyticsService.getApproximateTopProducts(limit, sortBy, days));
+        }
         return ResponseEntity.ok(analyticsService.getTopProducts(limit, sortBy));
     }
 
     @GetMapping("/category-distribution")
-    public ResponseEntity<CategoryDistributionResponse> getCategoryDistribution() {
+    public ResponseEntity<CategoryDistributionResponse> getCategoryDistribution(WebRequest webRequest) {
         log.info("GET /api/analytics/category-distribution");
+        if (notModified(webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(analyticsService.getCategoryDistribution());
     }
 
     @GetMapping("/revenue-summary")
-    public ResponseEntity<RevenueSummaryResponse> getRevenueSummary() {
+    public ResponseEntity<RevenueSummaryResponse> getRevenueSummary(WebRequest webRequest) {
         log.info("GET /api/analytics/revenue-summary");
+        if (notModified(webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(analyticsService.getRevenueSummary());
     }
+
+    /**
+     * Sales per hour|day|week|month between two days (inclusive; default the last 30 days),
+     * optionally for one category or product, downsampled to at most maxPoints points
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<TimeSeriesResponse> getTimeSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(defaultValue = "500") int maxPoints,
+            WebRequest webRequest
+    ) {
+        log.info("GET /api/analytics/timeseries?from={}&to={}&granularity={}&category={}&productId={}&maxPoints={}",
+                from, to, granularity, category, productId, maxPoints);
+        if (notModified(webRequest)) {
+            return null;
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(analyticsService.getTimeSeries(start, end, granularity, category, productId, maxPoints));
+    }
+
+    /**
+     * Everything the dashboard shows in one payload; parameters default like the individual endpoints.
+     * With the defaults it is served from the background snapshot (see snapshotAge) unless fresh=true.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<DashboardResponse> getDashboard(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "revenue") String sortBy,
+            @RequestParam(defaultValue = "week") String period,
+            @RequestParam(defaultValue = "false") boolean fresh,
+            WebRequest webRequest
+    ) {
+        log.info("GET /api/analytics/dashboard?days={}&limit={}&sortBy={}&period={}&fresh={}", days, limit, sortBy, period, fresh);
+        if (!fresh) {
+            Optional<DashboardResponse> snapshot = dashboardSnapshotter.getDashboard(days, limit, sortBy, period);
+            if (snapshot.isPresent()) {
+                return ResponseEntity.ok(snapshot.get());
+            }
+        }
+        if (notModified(webRequest, salesService.getStartDateForPeriod(period))) {
+            return null;
+        }
+        return ResponseEntity.ok(dashboardService.getDashboard(days, limit, sortBy, period));
+    }
+
+    /**
+     * Server-Sent Events: a "snapshot" of the last 24 hours, then a "delta" about once a second while sales happen
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getLiveMetrics() throws IOException {
+        log.info("GET /api/analytics/live");
+        return liveMetricsBroadcaster.subscribe();
+    }
+
+    // Sets the ETag; true when the client's copy is current and a 304 has been prepared
+    private boolean notModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(etag());
+    }
+
+    private boolean notModified(WebRequest webRequest, LocalDateTime windowStart) {
+        return webRequest.checkNotModified(etag() + "-" + windowStart);
+    }
+
+    private String etag() {
+        return dataVersions.tag(DataVersions.Domain.SALES, DataVersions.Domain.PRODUCTS) + "-" + LocalDate.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,428 @@
+package com.retailsense.analytics.cube;
+
+import com.retailsense.analytics.dto.CategoryDistributionResponse;
+import com.retailsense.analytics.dto.RevenueSummaryResponse;
+import com.retailsense.analytics.dto.SalesTrendResponse;
+import com.retailsense.analytics.dto.TopProductsResponse;
+import com.retailsense.common.util.Money;
+import com.retailsense.product.event.ProductChangedEvent;
+import com.retailsense.product.model.Product;
+import com.retailsense.product.service.ProductService;
+import com.retailsense.sales.dto.SaleFactRow;
+import com.retailsense.sales.event.SaleRecordedEvent;
+import com.retailsense.sales.repository.SalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory columnar copy of the sales facts, used instead of the rollup queries when
+ * retailsense.analytics.engine=cube.
+ * One row per sale, stored column-wise in primitive arrays (epoch day, product index,
+ * units, revenue and cost in cents) so every analytics query is a tight scan with no
+ * per-row objects; sums use overflow-checked long arithmetic, as Money does.
+ * Loaded from the database once the application is ready and appended to after each
+ * committed sale; queries fall back to the database until the load is done.
+ */
+@Component
+@ConditionalOnProperty(name = "retailsense.analytics.engine", havingValue = "cube")
+@Slf4j
+public class SalesCube {
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    private final SalesRepository salesRepository;
+    private final ProductService productService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Fact columns, guarded by lock; only the first size entries are valid
+    private int size;
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] productIndexes = new int[INITIAL_CAPACITY];
+    private int[] units = new int[INITIAL_CAPACITY];
+    private long[] revenueCents = new long[INITIAL_CAPACITY];
+    private long[] costCents = new long[INITIAL_CAPACITY];
+
+    // Product dimension: dense index per product id, attributes looked up per index
+    private final Map<Long, Integer> productIndexById = new HashMap<>();
+    private final List<Long> productIdByIndex = new ArrayList<>();
+    private final Map<Long, Product> products = new ConcurrentHashMap<>();
+
+    // Sales committed while the initial load is running, guarded by lock
+    private boolean ready;
+    private final List<SaleRecordedEvent> pending = new ArrayList<>();
+
+    public SalesCube(SalesRepository salesRepository, ProductService productService,
+                     PlatformTransactionManager transactionManager) {
+        this.salesRepository = salesRepository;
+        this.productService = productService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load products and every sale; sales recorded meanwhile are queued and merged afterwards
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        productService.getAllProducts().forEach(product -> products.put(product.getId(), product));
+
+        Columns loaded = readOnlyTransaction.execute(status -> {
+            Columns columns = new Columns();
+            try (Stream<SaleFactRow> rows = salesRepository.streamAllFacts()) {
+                rows.forEach(columns::add);
+            }
+            return columns;
+        });
+
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < loaded.size; row++) {
+                append(loaded.epochDays[row], productIndex(loaded.productIds[row]),
+                        loaded.units[row], loaded.revenueCents[row], loaded.costCents[row]);
+            }
+            // A queued sale may already be in the snapshot the load query read
+            long[] loadedSaleIds = Arrays.copyOf(loaded.saleIds, loaded.size);
+            Arrays.sort(loadedSaleIds);
+            for (SaleRecordedEvent event : pending) {
+                if (Arrays.binarySearch(loadedSaleIds, event.saleId()) < 0) {
+                    append(event);
+                }
+            }
+            pending.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Sales cube loaded {} sales for {} products in {} ms",
+                size, products.size(), System.currentTimeMillis() - started);
+    }
+
+    // Runs before AnalyticsCacheInvalidator so a re-cached result includes the sale
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onSaleRecorded(SaleRecordedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                append(event);
+            } else {
+                pending.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.changeType() == ProductChangedEvent.ChangeType.DELETED) {
+            event.productIds().forEach(products::remove);
+        } else {
+            productService.getProductsByIds(event.productIds()).forEach(product -> products.put(product.getId(), product));
+        }
+    }
+
+    public SalesTrendResponse salesTrend(int days) {
+        int firstDay = (int) LocalDate.now().minusDays(days).toEpochDay();
+
+        // Day-ordered buckets keyed by epoch day
+        TreeMap<Integer, long[]> buckets = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                int day = epochDays[row];
+                if (day >= firstDay) {
+                    long[] bucket = buckets.computeIfAbsent(day, d -> new long[2]);
+                    bucket[0] = Math.addExact(bucket[0], revenueCents[row]);
+                    bucket[1]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SalesTrendResponse.DailyData> dataList = new ArrayList<>(buckets.size());
+        buckets.forEach((day, bucket) -> dataList.add(new SalesTrendResponse.DailyData(
+                LocalDate.ofEpochDay(day).toString(), fromCents(bucket[0]), (int) bucket[1])));
+
+        return SalesTrendResponse.builder()
+                .period("last_" + days + "_days")
+                .data(dataList)
+                .build();
+    }
+
+    public TopProductsResponse topProducts(int limit, String sortBy) {
+        ProductTotals totals = productTotals();
+
+        long[] metric = switch (sortBy) {
+            case "quantity" -> totals.units;
+            case "frequency" -> totals.transactions;
+            default -> totals.revenueCents;
+        };
+
+        // Same ordering as the rollup query: metric descending, then product id
+        List<Integer> ranked = new ArrayList<>();
+        for (int index : totals.soldIndexes()) {
+            ranked.add(index);
+        }
+        ranked.sort(Comparator.comparingLong((Integer index) -> -metric[index])
+                .thenComparing(index -> totals.productIds[index]));
+
+        List<TopProductsResponse.ProductSales> topProducts = new ArrayList<>();
+        for (int index : ranked) {
+            Product product = products.get(totals.productIds[index]);
+            if (product == null) {
+                continue;
+            }
+            topProducts.add(TopProductsResponse.ProductSales.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .category(product.getCategory())
+                    .totalRevenue(fromCents(totals.revenueCents[index]))
+                    .totalUnitsSold((int) totals.units[index])
+                    .salesCount((int) totals.transactions[index])
+                    .profitMargin(Product.profitMargin(product.getPurchasePrice(), product.getSellingPrice()))
+                    .build());
+            if (topProducts.size() == limit) {
+                break;
+            }
+        }
+
+        return TopProductsResponse.builder()
+                .products(topProducts)
+                .build();
+    }
+
+    public CategoryDistributionResponse categoryDistribution() {
+        ProductTotals totals = productTotals();
+
+        Map<String, Long> revenueByCategory = new HashMap<>();
+        long totalRevenue = 0;
+        for (int index : totals.soldIndexes()) {
+            Product product = products.get(totals.productIds[index]);
+            if (product == null) {
+                continue;
+            }
+            revenueByCategory.merge(product.getCategory(), totals.revenueCents[index], Math::addExact);
+            totalRevenue = Math.addExact(totalRevenue, totals.revenueCents[index]);
+        }
+
+        Map<String, Long> productsByCategory = new HashMap<>();
+        products.values().forEach(product -> productsByCategory.merge(product.getCategory(), 1L, Long::sum));
+
+        List<CategoryDistributionResponse.CategoryData> categories = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : revenueByCategory.entrySet()) {
+            Money revenue = Money.ofMinor(entry.getValue());
+            double percentage = revenue.percentOf(Money.ofMinor(totalRevenue));
+
+            categories.add(CategoryDistributionResponse.CategoryData.builder()
+                    .category(entry.getKey())
+                    .totalRevenue(revenue.toBigDecimal())
+                    .totalProducts(productsByCategory.getOrDefault(entry.getKey(), 0L))
+                    .percentage(percentage)
+                    .build());
+        }
+        categories.sort(Comparator.comparing(CategoryDistributionResponse.CategoryData::getTotalRevenue).reversed());
+
+        return CategoryDistributionResponse.builder()
+                .categories(categories)
+                .build();
+    }
+
+    public RevenueSummaryResponse revenueSummary() {
+        // Same midnight-based windows as the rollup query
+        LocalDate today = LocalDate.now();
+        int todayDay = (int) today.toEpochDay();
+        int weekStart = (int) today.minusDays(7).toEpochDay();
+        int monthStart = (int) today.minusDays(30).toEpochDay();
+
+        // revenue, cost, transactions for today, week and month
+        long[] sums = new long[9];
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                int day = epochDays[row];
+                if (day < monthStart) {
+                    continue;
+                }
+                accumulate(sums, 6, row);
+                if (day >= weekStart) {
+                    accumulate(sums, 3, row);
+                }
+                if (day >= todayDay) {
+                    accumulate(sums, 0, row);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return RevenueSummaryResponse.builder()
+                .today(periodSummary(sums, 0))
+                .week(periodSummary(sums, 3))
+                .month(periodSummary(sums, 6))
+                .build();
+    }
+
+    private void accumulate(long[] sums, int offset, int row) {
+        sums[offset] = Math.addExact(sums[offset], revenueCents[row]);
+        sums[offset + 1] = Math.addExact(sums[offset + 1], costCents[row]);
+        sums[offset + 2]++;
+    }
+
+    private RevenueSummaryResponse.PeriodSummary periodSummary(long[] sums, int offset) {
+        return RevenueSummaryResponse.PeriodSummary.builder()
+                .revenue(fromCents(sums[offset]))
+                .profit(Money.ofMinor(sums[offset]).minus(Money.ofMinor(sums[offset + 1])).toBigDecimal())
+                .transactions(sums[offset + 2])
+                .build();
+    }
+
+    // Per-product totals over every row, indexed by product index
+    private ProductTotals productTotals() {
+        lock.readLock().lock();
+        try {
+            int productCount = productIdByIndex.size();
+            ProductTotals totals = new ProductTotals(productCount);
+            for (int index = 0; index < productCount; index++) {
+                totals.productIds[index] = productIdByIndex.get(index);
+            }
+            for (int row = 0; row < size; row++) {
+                int index = productIndexes[row];
+                totals.revenueCents[index] = Math.addExact(totals.revenueCents[index], revenueCents[row]);
+                totals.units[index] += units[row];
+                totals.transactions[index]++;
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void append(SaleRecordedEvent event) {
+        append(epochDay(event.saleDate()), productIndex(event.productId()), event.quantitySold(),
+                toCents(event.totalRevenue()), toCents(event.totalCost()));
+    }
+
+    private void append(int epochDay, int productIndex, int quantity, long revenue, long cost) {
+        if (size == epochDays.length) {
+            int capacity = size * 2;
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            productIndexes = Arrays.copyOf(productIndexes, capacity);
+            units = Arrays.copyOf(units, capacity);
+            revenueCents = Arrays.copyOf(revenueCents, capacity);
+            costCents = Arrays.copyOf(costCents, capacity);
+        }
+        epochDays[size] = epochDay;
+        productIndexes[size] = productIndex;
+        units[size] = quantity;
+        revenueCents[size] = revenue;
+        costCents[size] = cost;
+        size++;
+    }
+
+    private int productIndex(Long productId) {
+        return productIndexById.computeIfAbsent(productId, id -> {
+            productIdByIndex.add(id);
+            return productIdByIndex.size() - 1;
+        });
+    }
+
+    private static int epochDay(LocalDateTime saleDate) {
+        return (int) saleDate.toLocalDate().toEpochDay();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return Money.of(amount).minorUnits();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return Money.ofMinor(cents).toBigDecimal();
+    }
+
+    private static final class ProductTotals {
+        final Long[] productIds;
+        final long[] revenueCents;
+        final long[] units;
+        final long[] transactions;
+
+        ProductTotals(int productCount) {
+            productIds = new Long[productCount];
+            revenueCents = new long[productCount];
+            units = new long[productCount];
+            transactions = new long[productCount];
+        }
+
+        int[] soldIndexes() {
+            int[] sold = new int[transactions.length];
+            int count = 0;
+            for (int index = 0; index < transactions.length; index++) {
+                if (transactions[index] > 0) {
+                    sold[count++] = index;
+                }
+            }
+            return Arrays.copyOf(sold, count);
+        }
+    }
+
+    // Growable columns filled by the initial load, before product indexes are assigned
+    private static final class Columns {
+        int size;
+        long[] saleIds = new long[INITIAL_CAPACITY];
+        int[] epochDays = new int[INITIAL_CAPACITY];
+        long[] productIds = new long[INITIAL_CAPACITY];
+        int[] units = new int[INITIAL_CAPACITY];
+        long[] revenueCents = new long[INITIAL_CAPACITY];
+        long[] costCents = new long[INITIAL_CAPACITY];
+
+        void add(SaleFactRow row) {
+            if (size == saleIds.length) {
+                int capacity = size * 2;
+                saleIds = Arrays.copyOf(saleIds, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                units = Arrays.copyOf(units, capacity);
+                revenueCents = Arrays.copyOf(revenueCents, capacity);
+                costCents = Arrays.copyOf(costCents, capacity);
+            }
+            saleIds[size] = row.getId();
+            epochDays[size] = epochDay(row.getSaleDate());
+            productIds[size] = row.getProductId();
+            units[size] = row.getQuantitySold();
+            revenueCents[size] = toCents(row.getTotalRevenue());
+            costCents[size] = toCents(row.getTotalCost());
+            size++;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.retailsense.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.retailsense.sales.dto.SalesSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class DashboardResponse {
+    private SalesTrendResponse salesTrend;
+    private TopProductsResponse topProducts;
+    private CategoryDistributionResponse categoryDistribution;
+    private RevenueSummaryResponse revenueSummary;
+    private Long lowStockCount;
+    private SalesSummary salesSummary;
+    // Milliseconds since the data was computed, when served from the precomputed snapshot
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long snapshotAge;
+}
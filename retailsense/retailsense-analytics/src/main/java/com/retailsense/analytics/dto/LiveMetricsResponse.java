@@ -0,0 +1,42 @@
+package com.retailsense.analytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LiveMetricsResponse {
+    private String generatedAt;
+    private Totals lastHour;
+    private Totals last24Hours;
+    // Every minute with sales in a snapshot event, only the minutes that changed in a delta
+    private List<MinuteData> minutes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Totals {
+        private BigDecimal revenue;
+        private Long unitsSold;
+        private Long transactions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MinuteData {
+        private String minute;
+        private BigDecimal revenue;
+        private Long unitsSold;
+        private Long transactions;
+    }
+}
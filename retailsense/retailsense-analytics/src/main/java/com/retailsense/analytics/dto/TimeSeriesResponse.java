@@ -0,0 +1,34 @@
+package com.retailsense.analytics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesResponse {
+    private String granularity;
+    private String from;
+    private String to;
+    // Buckets with sales before downsampling; points holds at most maxPoints of them
+    private Integer totalBuckets;
+    private Boolean downsampled;
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Point {
+        private String bucket;
+        private BigDecimal revenue;
+        private Long unitsSold;
+        private Long transactions;
+    }
+}
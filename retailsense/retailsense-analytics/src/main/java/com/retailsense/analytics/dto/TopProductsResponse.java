@@ -1,5 +1,6 @@
 package com.retailsense.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,14 @@ import java.util.List;
 public class TopProductsResponse {
     private List<ProductSales> products;
 
+    // Only set for approximate (sketch-based) results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean approximate;
+
+    // Largest possible overestimate of each reported figure (approximate results only)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ErrorBound errorBound;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -28,4 +37,14 @@ public class TopProductsResponse {
         private Integer salesCount;
         private BigDecimal profitMargin;
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ErrorBound {
+        private BigDecimal totalRevenue;
+        private Long totalUnitsSold;
+        private Long salesCount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.retailsense.analytics.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes live sales metrics to Server-Sent Events subscribers. A new subscriber gets a
+ * "snapshot" event with every minute of the last 24 hours; after that, once per tick, all
+ * sales since the previous tick are coalesced into a single "delta" event (window totals
+ * plus the changed minutes). The delta is built and serialized once per tick, so fan-out
+ * costs one write per subscriber and no database work.
+ */
+@Component
+@Slf4j
+public class LiveMetricsBroadcaster {
+
+    private final LiveSalesMetrics liveSalesMetrics;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    public LiveMetricsBroadcaster(LiveSalesMetrics liveSalesMetrics, ObjectMapper objectMapper,
+                                  @Value("${retailsense.analytics.live.timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.liveSalesMetrics = liveSalesMetrics;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe() throws IOException {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+
+        emitter.send(SseEmitter.event()
+                .name("snapshot")
+                .data(toJson(liveSalesMetrics.snapshot(liveSalesMetrics.activeMinutes())), MediaType.APPLICATION_JSON));
+        subscribers.add(emitter);
+        log.info("Live metrics subscriber added ({} connected)", subscribers.size());
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${retailsense.analytics.live.push-interval-ms:1000}")
+    public void pushChanges() {
+        long[] changed = liveSalesMetrics.drainChangedMinutes();
+        if (changed.length == 0 || subscribers.isEmpty()) {
+            return;
+        }
+
+        String delta = toJson(liveSalesMetrics.snapshot(changed));
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("delta").data(delta, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter's callbacks may not fire for a broken connection
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live metrics", e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.retailsense.analytics.live;
+
+import com.retailsense.analytics.dto.LiveMetricsResponse;
+import com.retailsense.common.util.Money;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.sales.dto.SaleFactRow;
+import com.retailsense.sales.event.SaleRecordedEvent;
+import com.retailsense.sales.repository.SalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Revenue, units and transactions per minute for the last 24 hours, in a ring of 1440
+ * minute buckets. Recording a sale is lock-free: the slot's bucket is swapped by CAS when
+ * its minute rolls over and counts go to LongAdders. Minutes touched since the last drain
+ * are tracked so LiveMetricsBroadcaster can push only what changed.
+ * Warmed from the last 24 hours of sales at startup, then fed by committed sales.
+ */
+@Component
+@Slf4j
+public class LiveSalesMetrics {
+
+    static final int MINUTES = 24 * 60;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private record Bucket(long minute, LongAdder revenueMinor, LongAdder units, LongAdder transactions) {
+
+        Bucket(long minute) {
+            this(minute, new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    private final SalesRepository salesRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReferenceArray<Bucket> ring = new AtomicReferenceArray<>(MINUTES);
+    private final Set<Long> changedMinutes = ConcurrentHashMap.newKeySet();
+
+    // Sales committed while warming up, merged (minus those the warm-up query already read) once it is done
+    private volatile boolean ready;
+    private final ConcurrentLinkedQueue<SaleRecordedEvent> pending = new ConcurrentLinkedQueue<>();
+    private volatile Set<Long> warmUpSaleIds = Set.of();
+
+    public LiveSalesMetrics(SalesRepository salesRepository, PlatformTransactionManager transactionManager) {
+        this.salesRepository = salesRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochSecond((currentMinute() - MINUTES + 1) * 60), ZONE);
+        List<SaleFactRow> rows = readOnlyTransaction.execute(status -> salesRepository.findFactsFrom(from));
+
+        Set<Long> loadedSaleIds = new HashSet<>();
+        for (SaleFactRow row : rows) {
+            record(row.getSaleDate(), row.getTotalRevenue(), row.getQuantitySold());
+            loadedSaleIds.add(row.getId());
+        }
+        warmUpSaleIds = loadedSaleIds;
+        ready = true;
+        drainPending();
+        log.info("Live sales metrics warmed up with {} sales from the last 24 hours", rows.size());
+    }
+
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public void onSaleRecorded(SaleRecordedEvent event) {
+        if (!ready) {
+            pending.add(event);
+            return;
+        }
+        // A straggler queued just as the warm-up finished
+        if (!pending.isEmpty()) {
+            drainPending();
+        } else {
+            warmUpSaleIds = Set.of();
+        }
+        record(event.saleDate(), event.totalRevenue(), event.quantitySold());
+    }
+
+    /**
+     * Window totals plus the given minutes
+     */
+    public LiveMetricsResponse snapshot(long[] minutes) {
+        long now = currentMinute();
+        long[] hour = new long[3];
+        long[] day = new long[3];
+        for (int slot = 0; slot < MINUTES; slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket == null || bucket.minute() > now || bucket.minute() <= now - MINUTES) {
+                continue;
+            }
+            long[] values = {bucket.revenueMinor().sum(), bucket.units().sum(), bucket.transactions().sum()};
+            for (int i = 0; i < values.length; i++) {
+                day[i] = Math.addExact(day[i], values[i]);
+                if (bucket.minute() > now - 60) {
+                    hour[i] = Math.addExact(hour[i], values[i]);
+                }
+            }
+        }
+
+        List<LiveMetricsResponse.MinuteData> minuteData = new ArrayList<>(minutes.length);
+        for (long minute : minutes) {
+            Bucket bucket = ring.get(slot(minute));
+            if (bucket != null && bucket.minute() == minute && minute > now - MINUTES) {
+                minuteData.add(LiveMetricsResponse.MinuteData.builder()
+                        .minute(LocalDateTime.ofInstant(Instant.ofEpochSecond(minute * 60), ZONE).toString())
+                        .revenue(Money.ofMinor(bucket.revenueMinor().sum()).toBigDecimal())
+                        .unitsSold(bucket.units().sum())
+                        .transactions(bucket.transactions().sum())
+                        .build());
+            }
+        }
+
+        return LiveMetricsResponse.builder()
+                .generatedAt(LocalDateTime.now().toString())
+                .lastHour(totals(hour))
+                .last24Hours(totals(day))
+                .minutes(minuteData)
+                .build();
+    }
+
+    /**
+     * Every minute in the window that has sales, oldest first
+     */
+    public long[] activeMinutes() {
+        long now = currentMinute();
+        return IntStream.range(0, MINUTES)
+                .mapToObj(ring::get)
+                .filter(bucket -> bucket != null && bucket.minute() <= now && bucket.minute() > now - MINUTES)
+                .mapToLong(Bucket::minute)
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Minutes changed since the previous call, oldest first
+     */
+    public long[] drainChangedMinutes() {
+        long[] drained = changedMinutes.stream().mapToLong(Long::longValue).toArray();
+        for (long minute : drained) {
+            changedMinutes.remove(minute);
+        }
+        Arrays.sort(drained);
+        return drained;
+    }
+
+    private void drainPending() {
+        Set<Long> alreadyLoaded = warmUpSaleIds;
+        SaleRecordedEvent event;
+        while ((event = pending.poll()) != null) {
+            if (!alreadyLoaded.contains(event.saleId())) {
+                record(event.saleDate(), event.totalRevenue(), event.quantitySold());
+            }
+        }
+    }
+
+    private void record(LocalDateTime saleDate, BigDecimal revenue, int quantity) {
+        long minute = saleDate.atZone(ZONE).toEpochSecond() / 60;
+        if (minute <= currentMinute() - MINUTES) {
+            return;
+        }
+        Bucket bucket = bucketFor(minute);
+        if (bucket == null) {
+            return;
+        }
+        bucket.revenueMinor().add(Money.of(revenue).minorUnits());
+        bucket.units().add(quantity);
+        bucket.transactions().increment();
+        changedMinutes.add(minute);
+    }
+
+    // Current bucket for the minute, replacing the one left from 24 hours earlier
+    // (null if the slot already holds a newer minute)
+    private Bucket bucketFor(long minute) {
+        int slot = slot(minute);
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.minute() == minute) {
+                return bucket;
+            }
+            if (bucket != null && bucket.minute() > minute) {
+                return null;
+            }
+            Bucket fresh = new Bucket(minute);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) MINUTES);
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    private static LiveMetricsResponse.Totals totals(long[] values) {
+        return LiveMetricsResponse.Totals.builder()
+                .revenue(Money.ofMinor(values[0]).toBigDecimal())
+                .unitsSold(values[1])
+                .transactions(values[2])
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.retailsense.analytics.service;
+
+import com.retailsense.analytics.config.AnalyticsCacheConfig;
+import com.retailsense.analytics.config.AnalyticsCacheKeys;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.event.ProductChangedEvent;
+import com.retailsense.sales.event.SaleRecordedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalidates the analytics caches once a sale or product edit has committed, so the next
+ * dashboard poll sees it. A clear alone would not do: a load that read the database before
+ * the commit may still be running and would store its stale result after the clear. So the
+ * caches first move to a new key generation (see AnalyticsCacheKeys), which such a load
+ * cannot write to, and are then cleared to free the old entries. This runs before the
+ * data-version bump (see DataVersions.BEFORE_BUMP), so a request carrying the new ETag
+ * always misses the old entries.
+ */
+@Component
+@Slf4j
+public class AnalyticsCacheInvalidator {
+
+    private final AnalyticsCacheKeys cacheKeys;
+    private final CacheManager cacheManager;
+
+    public AnalyticsCacheInvalidator(AnalyticsCacheKeys cacheKeys,
+                                     @Qualifier(AnalyticsCacheConfig.CACHE_MANAGER) CacheManager cacheManager) {
+        this.cacheKeys = cacheKeys;
+        this.cacheManager = cacheManager;
+    }
+
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public void onSaleRecorded(SaleRecordedEvent event) {
+        log.debug("Sale {} recorded, clearing analytics caches", event.saleId());
+        invalidate(AnalyticsCacheConfig.SALES_TREND,
+                AnalyticsCacheConfig.TOP_PRODUCTS,
+                AnalyticsCacheConfig.CATEGORY_DISTRIBUTION,
+                AnalyticsCacheConfig.REVENUE_SUMMARY);
+    }
+
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        log.debug("Products {} {}, clearing product analytics caches", event.productIds(), event.changeType());
+        invalidate(AnalyticsCacheConfig.TOP_PRODUCTS,
+                AnalyticsCacheConfig.CATEGORY_DISTRIBUTION);
+    }
+
+    private void invalidate(String... cacheNames) {
+        cacheKeys.invalidate(cacheNames);
+        for (String cacheName : cacheNames) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -1,48 +1,72 @@
 package com.retailsense.analytics.service;
 
+import com.retailsense.analytics.config.AnalyticsCacheConfig;
+import com.retailsense.analytics.cube.SalesCube;
 import com.retailsense.analytics.dto.*;
-import com.retailsense.product.repository.ProductRepository;
+import com.retailsense.common.util.Money;
+import com.retailsense.analytics.sketch.TopProductsSketch;
+import com.retailsense.common.concurrent.SingleFlight;
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.product.model.Product;
+import com.retailsense.product.service.ProductService;
+import com.retailsense.sales.dto.BucketTotals;
+import com.retailsense.sales.dto.CategorySalesTotals;
+import com.retailsense.sales.dto.RevenueSummaryTotals;
+import com.retailsense.sales.repository.SalesDailyProductRepository;
 import com.retailsense.sales.repository.SalesRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Dashboard analytics. Results are cached per endpoint and parameters (see AnalyticsCacheConfig)
+ * and cleared by AnalyticsCacheInvalidator when sales or products change; identical concurrent
+ * calls share one computation (@SingleFlight).
+ */
 @Service
+@SingleFlight
 @RequiredArgsConstructor
 @Slf4j
 @Transactional(readOnly = true)
 public class AnalyticsService {
 
+    private static final Set<String> GRANULARITIES = Set.of("hour", "day", "week", "month");
+    private static final int MAX_POINTS_LIMIT = 5000;
+
+    private final SalesDailyProductRepository salesDailyProductRepository;
     private final SalesRepository salesRepository;
-    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final TopProductsSketch topProductsSketch;
+    // Present only when retailsense.analytics.engine=cube
+    private final Optional<SalesCube> salesCube;
 
+    @Cacheable(cacheManager = AnalyticsCacheConfig.CACHE_MANAGER, cacheNames = AnalyticsCacheConfig.SALES_TREND,
+            keyGenerator = AnalyticsCacheConfig.KEY_GENERATOR, sync = true)
     public SalesTrendResponse getSalesTrend(int days) {
         log.info("Calculating sales trend for last {} days", days);
 
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        var sales = salesRepository.findRecentSales(startDate);
-
-        Map<LocalDate, SalesTrendResponse.DailyData> dailyMap = new TreeMap<>();
-
-        for (var sale : sales) {
-            LocalDate date = sale.getSaleDate().toLocalDate();
-            dailyMap.computeIfAbsent(date, k -> new SalesTrendResponse.DailyData(
-                    date.toString(), BigDecimal.ZERO, 0
-            ));
-
-            SalesTrendResponse.DailyData data = dailyMap.get(date);
-            data.setSales(data.getSales().add(sale.getTotalRevenue()));
-            data.setTransactions(data.getTransactions() + 1);
+        if (cubeReady()) {
+            return salesCube.get().salesTrend(days);
         }
 
-        List<SalesTrendResponse.DailyData> dataList = new ArrayList<>(dailyMap.values());
+        LocalDate startDay = LocalDate.now().minusDays(days);
+
+        List<SalesTrendResponse.DailyData> dataList = salesDailyProductRepository.findDailyTotals(startDay).stream()
+                .map(day -> new SalesTrendResponse.DailyData(
+                        day.getSaleDay().toString(),
+                        day.getRevenue(),
+                        day.getTransactions().intValue()))
+                .collect(Collectors.toList());
 
         return SalesTrendResponse.builder()
                 .period("last_" + days + "_days")
@@ -50,39 +74,34 @@ public class AnalyticsService {
                 .build();
     }
 
+    @Cacheable(cacheManager = AnalyticsCacheConfig.CACHE_MANAGER, cacheNames = AnalyticsCacheConfig.TOP_PRODUCTS,
+            keyGenerator = AnalyticsCacheConfig.KEY_GENERATOR, sync = true)
     public TopProductsResponse getTopProducts(int limit, String sortBy) {
         log.info("Fetching top {} products sorted by {}", limit, sortBy);
 
-        var allSales = salesRepository.findAll();
-        Map<Long, TopProductsResponse.ProductSales> productSalesMap = new HashMap<>();
-
-        for (var sale : allSales) {
-            Long productId = sale.getProduct().getId();
-            productSalesMap.computeIfAbsent(productId, k -> TopProductsResponse.ProductSales.builder()
-                    .productId(productId)
-                    .productName(sale.getProduct().getName())
-                    .category(sale.getProduct().getCategory())
-                    .totalRevenue(BigDecimal.ZERO)
-                    .totalUnitsSold(0)
-                    .salesCount(0)
-                    .profitMargin(sale.getProduct().getProfitMargin())
-                    .build());
-
-            TopProductsResponse.ProductSales ps = productSalesMap.get(productId);
-            ps.setTotalRevenue(ps.getTotalRevenue().add(sale.getTotalRevenue()));
-            ps.setTotalUnitsSold(ps.getTotalUnitsSold() + sale.getQuantitySold());
-            ps.setSalesCount(ps.getSalesCount() + 1);
+        if (cubeReady()) {
+            return salesCube.get().topProducts(limit, sortBy);
         }
 
-        Comparator<TopProductsResponse.ProductSales> comparator = switch (sortBy) {
-            case "quantity" -> Comparator.comparing(TopProductsResponse.ProductSales::getTotalUnitsSold).reversed();
-            case "frequency" -> Comparator.comparing(TopProductsResponse.ProductSales::getSalesCount).reversed();
-            default -> Comparator.comparing(TopProductsResponse.ProductSales::getTotalRevenue).reversed();
+        // Ranking and limit run in the database
+        String metric = switch (sortBy) {
+            case "quantity" -> "unitsSold";
+            case "frequency" -> "transactions";
+            default -> "revenue";
         };
-
-        List<TopProductsResponse.ProductSales> topProducts = productSalesMap.values().stream()
-                .sorted(comparator)
-                .limit(limit)
+        Sort sort = Sort.by(Sort.Direction.DESC, metric).and(Sort.by("productId"));
+
+        List<TopProductsResponse.ProductSales> topProducts = salesDailyProductRepository
+                .findProductTotals(sort, Limit.of(limit)).stream()
+                .map(totals -> TopProductsResponse.ProductSales.builder()
+                        .productId(totals.getProductId())
+                        .productName(totals.getProductName())
+                        .category(totals.getCategory())
+                        .totalRevenue(totals.getRevenue())
+                        .totalUnitsSold(totals.getUnitsSold().intValue())
+                        .salesCount(totals.getTransactions().intValue())
+                        .profitMargin(Product.profitMargin(totals.getPurchasePrice(), totals.getSellingPrice()))
+                        .build())
                 .collect(Collectors.toList());
 
         return TopProductsResponse.builder()
@@ -90,76 +109,174 @@ public class AnalyticsService {
                 .build();
     }
 
+    /**
+     * Top products from the streaming sketches: cost is independent of sales volume (but
+     * grows with days, see TopProductsSketch), figures may overcount by at most the returned
+     * error bound. days limits the window to the last n days (all time when null).
+     */
+    public TopProductsResponse getApproximateTopProducts(int limit, String sortBy, Integer days) {
+        log.info("Estimating top {} products sorted by {} over {} days", limit, sortBy, days == null ? "all" : days);
+
+        TopProductsSketch.Result result = topProductsSketch.topProducts(
+                limit, TopProductsSketch.Metric.fromSortBy(sortBy), days);
+
+        Map<Long, Product> products = productService.getProductsByIds(result.products().stream()
+                        .map(TopProductsSketch.Estimate::productId)
+                        .toList()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+
+        List<TopProductsResponse.ProductSales> topProducts = new ArrayList<>();
+        for (TopProductsSketch.Estimate estimate : result.products()) {
+            Product product = products.get(estimate.productId());
+            if (product == null) {
+                continue;
+            }
+            topProducts.add(TopProductsResponse.ProductSales.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .category(product.getCategory())
+                    .totalRevenue(Money.ofMinor(estimate.revenueMinor()).toBigDecimal())
+                    .totalUnitsSold(Math.toIntExact(estimate.units()))
+                    .salesCount(Math.toIntExact(estimate.transactions()))
+                    .profitMargin(product.getProfitMargin())
+                    .build());
+        }
+
+        return TopProductsResponse.builder()
+                .products(topProducts)
+                .approximate(true)
+                .errorBound(TopProductsResponse.ErrorBound.builder()
+                        .totalRevenue(Money.ofMinor(result.revenueErrorMinor()).toBigDecimal())
+                        .totalUnitsSold(result.unitsError())
+                        .salesCount(result.transactionsError())
+                        .build())
+                .build();
+    }
+
+    @Cacheable(cacheManager = AnalyticsCacheConfig.CACHE_MANAGER, cacheNames = AnalyticsCacheConfig.CATEGORY_DISTRIBUTION,
+            keyGenerator = AnalyticsCacheConfig.KEY_GENERATOR, sync = true)
     public CategoryDistributionResponse getCategoryDistribution() {
         log.info("Calculating category distribution");
 
-        var allSales = salesRepository.findAll();
-        Map<String, BigDecimal> categoryRevenue = new HashMap<>();
-        BigDecimal totalRevenue = BigDecimal.ZERO;
+        if (cubeReady()) {
+            return salesCube.get().categoryDistribution();
+        }
 
-        for (var sale : allSales) {
-            String category = sale.getProduct().getCategory();
-            categoryRevenue.merge(category, sale.getTotalRevenue(), BigDecimal::add);
-            totalRevenue = totalRevenue.add(sale.getTotalRevenue());
+        var categoryTotals = salesDailyProductRepository.findCategoryTotals();
+        Money totalRevenue = Money.ZERO;
+        for (CategorySalesTotals totals : categoryTotals) {
+            totalRevenue = totalRevenue.plus(Money.of(totals.getRevenue()));
         }
 
         List<CategoryDistributionResponse.CategoryData> categories = new ArrayList<>();
-        BigDecimal finalTotalRevenue = totalRevenue;
 
-        categoryRevenue.forEach((category, revenue) -> {
-            long productCount = productRepository.findByCategory(category).size();
-            double percentage = finalTotalRevenue.compareTo(BigDecimal.ZERO) > 0
-                    ? revenue.divide(finalTotalRevenue, 4, BigDecimal.ROUND_HALF_UP)
-                    .multiply(BigDecimal.valueOf(100)).doubleValue()
-                    : 0.0;
+        for (var totals : categoryTotals) {
+            String category = totals.getCategory();
+            Money revenue = Money.of(totals.getRevenue());
+            double percentage = revenue.percentOf(totalRevenue);
 
             categories.add(CategoryDistributionResponse.CategoryData.builder()
                     .category(category)
-                    .totalRevenue(revenue)
-                    .totalProducts(productCount)
+                    .totalRevenue(revenue.toBigDecimal())
+                    .totalProducts(totals.getProductCount())
                     .percentage(percentage)
                     .build());
-        });
+        }
 
         return CategoryDistributionResponse.builder()
                 .categories(categories)
                 .build();
     }
 
+    @Cacheable(cacheManager = AnalyticsCacheConfig.CACHE_MANAGER, cacheNames = AnalyticsCacheConfig.REVENUE_SUMMARY,
+            keyGenerator = AnalyticsCacheConfig.KEY_GENERATOR, sync = true)
     public RevenueSummaryResponse getRevenueSummary() {
         log.info("Calculating revenue summary");
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfToday = now.withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime startOfWeek = now.minusDays(7);
-        LocalDateTime startOfMonth = now.minusDays(30);
+        if (cubeReady()) {
+            return salesCube.get().revenueSummary();
+        }
+
+        // The rollup is daily, so week and month windows start at midnight
+        LocalDate today = LocalDate.now();
+        RevenueSummaryTotals totals = salesDailyProductRepository.findRevenueSummary(
+                today, today.minusDays(7), today.minusDays(30));
 
         return RevenueSummaryResponse.builder()
-                .today(calculatePeriodSummary(startOfToday))
-                .week(calculatePeriodSummary(startOfWeek))
-                .month(calculatePeriodSummary(startOfMonth))
+                .today(periodSummary(totals.getTodayRevenue(), totals.getTodayCost(), totals.getTodayTransactions()))
+                .week(periodSummary(totals.getWeekRevenue(), totals.getWeekCost(), totals.getWeekTransactions()))
+                .month(periodSummary(totals.getMonthRevenue(), totals.getMonthCost(), totals.getMonthTransactions()))
                 .build();
     }
 
-    private RevenueSummaryResponse.PeriodSummary calculatePeriodSummary(LocalDateTime startDate) {
-        var sales = salesRepository.findRecentSales(startDate);
+    /**
+     * Sales per hour, day, week or month between two days (inclusive), optionally for one
+     * category or product. Bucketing and filters run in SQL: hours from the sales table, the
+     * rest from the daily rollup (week buckets start on Monday; the first and last bucket
+     * may be partial). Empty buckets are omitted. Longer series are downsampled with LTTB on
+     * revenue to at most maxPoints, keeping the peaks and dips a chart needs.
+     */
+    public TimeSeriesResponse getTimeSeries(LocalDate from, LocalDate to, String granularity,
+                                            String category, Long productId, int maxPoints) {
+        log.info("Building {} time series from {} to {} (category={}, productId={})",
+                granularity, from, to, category, productId);
+
+        if (!GRANULARITIES.contains(granularity)) {
+            throw new ValidationException("Granularity must be one of hour, day, week, month");
+        }
+        if (from.isAfter(to)) {
+            throw new ValidationException("'from' must not be after 'to'");
+        }
+        if (maxPoints < 3 || maxPoints > MAX_POINTS_LIMIT) {
+            throw new ValidationException("maxPoints must be between 3 and " + MAX_POINTS_LIMIT);
+        }
+        String categoryFilter = category == null || category.isBlank() ? null : category;
+
+        List<BucketTotals> buckets = "hour".equals(granularity)
+                ? salesRepository.findHourlyTotals(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), categoryFilter, productId)
+                : salesDailyProductRepository.findBucketTotals(granularity, from, to.plusDays(1), categoryFilter, productId);
+
+        double[] x = new double[buckets.size()];
+        double[] y = new double[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            x[i] = buckets.get(i).getBucket().toEpochSecond(ZoneOffset.UTC);
+            y[i] = buckets.get(i).getRevenue().doubleValue();
+        }
+        int[] kept = Lttb.select(x, y, maxPoints);
+
+        List<TimeSeriesResponse.Point> points = new ArrayList<>(kept.length);
+        for (int index : kept) {
+            BucketTotals bucket = buckets.get(index);
+            points.add(TimeSeriesResponse.Point.builder()
+                    .bucket("hour".equals(granularity)
+                            ? bucket.getBucket().toString()
+                            : bucket.getBucket().toLocalDate().toString())
+                    .revenue(bucket.getRevenue())
+                    .unitsSold(bucket.getUnitsSold())
+                    .transactions(bucket.getTransactions())
+                    .build());
+        }
 
-        BigDecimal revenue = sales.stream()
-                .map(sale -> sale.getTotalRevenue())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return TimeSeriesResponse.builder()
+                .granularity(granularity)
+                .from(from.toString())
+                .to(to.toString())
+                .totalBuckets(buckets.size())
+                .downsampled(kept.length < buckets.size())
+                .points(points)
+                .build();
+    }
 
-        BigDecimal profit = sales.stream()
-                .map(sale -> {
-                    BigDecimal costPerUnit = sale.getProduct().getPurchasePrice();
-                    BigDecimal totalCost = costPerUnit.multiply(BigDecimal.valueOf(sale.getQuantitySold()));
-                    return sale.getTotalRevenue().subtract(totalCost);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // The cube answers once its initial load has finished; until then the rollup does
+    private boolean cubeReady() {
+        return salesCube.map(SalesCube::isReady).orElse(false);
+    }
 
+    private RevenueSummaryResponse.PeriodSummary periodSummary(BigDecimal revenue, BigDecimal cost, Long transactions) {
         return RevenueSummaryResponse.PeriodSummary.builder()
                 .revenue(revenue)
-                .profit(profit)
-                .transactions((long) sales.size())
+                .profit(Money.of(revenue).minus(Money.of(cost)).toBigDecimal())
+                .transactions(transactions)
                 .build();
     }
-}
\ No newline at end of file
+}
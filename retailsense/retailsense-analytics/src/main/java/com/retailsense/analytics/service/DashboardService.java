@@ -0,0 +1,270 @@
+package com.retailsense.analytics.service;
+
+import com.retailsense.analytics.config.AnalyticsExecutorConfig;
+import com.retailsense.analytics.cube.SalesCube;
+import com.retailsense.analytics.dto.*;
+import com.retailsense.common.util.Money;
+import com.retailsense.product.model.Product;
+import com.retailsense.product.service.ProductService;
+import com.retailsense.sales.dto.DailyProductTotals;
+import com.retailsense.sales.dto.SalesSummary;
+import com.retailsense.sales.repository.SalesDailyProductRepository;
+import com.retailsense.sales.service.SalesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Everything the dashboard page shows, in one call. Three independent reads run in
+ * parallel, each in its own read-only transaction: one scan of the daily rollup grouped
+ * both per day and per product (trend, top products, categories and revenue summary are
+ * all folded from those rows), the product list (names and category sizes) and the sales
+ * summary. The low-stock count comes from ProductService.getLowStockCount.
+ * With the sales cube enabled the analytics parts come from the cube instead of the scan,
+ * and the product list is not read.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private final AnalyticsService analyticsService;
+    private final SalesDailyProductRepository salesDailyProductRepository;
+    private final ProductService productService;
+    private final SalesService salesService;
+    private final Optional<SalesCube> salesCube;
+    private final TaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DashboardService(AnalyticsService analyticsService,
+                            SalesDailyProductRepository salesDailyProductRepository,
+                            ProductService productService,
+                            SalesService salesService,
+                            Optional<SalesCube> salesCube,
+                            @Qualifier(AnalyticsExecutorConfig.EXECUTOR) TaskExecutor executor,
+                            PlatformTransactionManager transactionManager) {
+        this.analyticsService = analyticsService;
+        this.salesDailyProductRepository = salesDailyProductRepository;
+        this.productService = productService;
+        this.salesService = salesService;
+        this.salesCube = salesCube;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public DashboardResponse getDashboard(int days, int limit, String sortBy, String period) {
+        log.info("Building dashboard: days={}, limit={}, sortBy={}, period={}", days, limit, sortBy, period);
+
+        boolean fromCube = salesCube.map(SalesCube::isReady).orElse(false);
+        CompletableFuture<RollupTotals> rollup = fromCube
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> scanRollup(days), executor);
+        CompletableFuture<List<Product>> products = fromCube
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(productService::getAllProducts, executor);
+        CompletableFuture<SalesSummary> salesSummary = CompletableFuture.supplyAsync(
+                () -> salesService.getSalesSummary(period), executor);
+
+        try {
+            DashboardResponse.DashboardResponseBuilder response = DashboardResponse.builder()
+                    .lowStockCount(productService.getLowStockCount())
+                    .salesSummary(salesSummary.join());
+
+            if (fromCube) {
+                return response
+                        .salesTrend(analyticsService.getSalesTrend(days))
+                        .topProducts(analyticsService.getTopProducts(limit, sortBy))
+                        .categoryDistribution(analyticsService.getCategoryDistribution())
+                        .revenueSummary(analyticsService.getRevenueSummary())
+                        .build();
+            }
+
+            RollupTotals totals = rollup.join();
+            Map<Long, Product> productsById = new HashMap<>();
+            products.join().forEach(product -> productsById.put(product.getId(), product));
+
+            return response
+                    .salesTrend(totals.salesTrend(days))
+                    .topProducts(totals.topProducts(limit, sortBy, productsById))
+                    .categoryDistribution(totals.categoryDistribution(productsById))
+                    .revenueSummary(totals.revenueSummary())
+                    .build();
+        } catch (CompletionException e) {
+            // Surface the original failure (e.g. ValidationException for a bad period)
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private RollupTotals scanRollup(int days) {
+        LocalDate today = LocalDate.now();
+        RollupTotals totals = new RollupTotals(today.minusDays(days), today);
+        readOnlyTransaction.executeWithoutResult(status ->
+                salesDailyProductRepository.findDayAndProductTotals().forEach(totals::add));
+        return totals;
+    }
+
+    /**
+     * Everything the analytics endpoints report, folded from the per-day and per-product
+     * rollup totals. Windows match AnalyticsService: trend from today - days, summary
+     * windows from midnight.
+     */
+    private static final class RollupTotals {
+
+        private final LocalDate trendStart;
+        private final LocalDate today;
+        private final LocalDate weekStart;
+        private final LocalDate monthStart;
+
+        // Per day: revenue, transactions
+        private final TreeMap<LocalDate, long[]> trend = new TreeMap<>();
+        // Today, week, month: revenue, cost, transactions
+        private final long[] summary = new long[9];
+        // Per product: revenue, units, transactions
+        private final Map<Long, long[]> perProduct = new HashMap<>();
+
+        RollupTotals(LocalDate trendStart, LocalDate today) {
+            this.trendStart = trendStart;
+            this.today = today;
+            this.weekStart = today.minusDays(7);
+            this.monthStart = today.minusDays(30);
+        }
+
+        void add(DailyProductTotals row) {
+            long revenue = Money.of(row.getRevenue()).minorUnits();
+            long transactions = row.getTransactions();
+
+            if (row.getProductId() != null) {
+                long[] product = perProduct.computeIfAbsent(row.getProductId(), id -> new long[3]);
+                product[0] = Math.addExact(product[0], revenue);
+                product[1] = Math.addExact(product[1], row.getUnitsSold());
+                product[2] = Math.addExact(product[2], transactions);
+                return;
+            }
+
+            LocalDate day = row.getSaleDay();
+            long cost = Money.of(row.getCost()).minorUnits();
+            if (!day.isBefore(trendStart)) {
+                long[] bucket = trend.computeIfAbsent(day, d -> new long[2]);
+                bucket[0] = Math.addExact(bucket[0], revenue);
+                bucket[1] = Math.addExact(bucket[1], transactions);
+            }
+            if (!day.isBefore(monthStart)) {
+                accumulate(6, revenue, cost, transactions);
+                if (!day.isBefore(weekStart)) {
+                    accumulate(3, revenue, cost, transactions);
+                }
+                if (!day.isBefore(today)) {
+                    accumulate(0, revenue, cost, transactions);
+                }
+            }
+        }
+
+        SalesTrendResponse salesTrend(int days) {
+            List<SalesTrendResponse.DailyData> dataList = new ArrayList<>(trend.size());
+            trend.forEach((day, bucket) -> dataList.add(new SalesTrendResponse.DailyData(
+                    day.toString(), Money.ofMinor(bucket[0]).toBigDecimal(), Math.toIntExact(bucket[1]))));
+            return SalesTrendResponse.builder()
+                    .period("last_" + days + "_days")
+                    .data(dataList)
+                    .build();
+        }
+
+        TopProductsResponse topProducts(int limit, String sortBy, Map<Long, Product> products) {
+            int metric = switch (sortBy) {
+                case "quantity" -> 1;
+                case "frequency" -> 2;
+                default -> 0;
+            };
+
+            // Same ordering as the rollup query: metric descending, then product id
+            List<Map.Entry<Long, long[]>> ranked = new ArrayList<>(perProduct.entrySet());
+            ranked.removeIf(entry -> !products.containsKey(entry.getKey()));
+            ranked.sort(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> -entry.getValue()[metric])
+                    .thenComparing(Map.Entry::getKey));
+
+            List<TopProductsResponse.ProductSales> topProducts = new ArrayList<>();
+            for (Map.Entry<Long, long[]> entry : ranked.subList(0, Math.min(limit, ranked.size()))) {
+                Product product = products.get(entry.getKey());
+                long[] values = entry.getValue();
+                topProducts.add(TopProductsResponse.ProductSales.builder()
+                        .productId(product.getId())
+                        .productName(product.getName())
+                        .category(product.getCategory())
+                        .totalRevenue(Money.ofMinor(values[0]).toBigDecimal())
+                        .totalUnitsSold(Math.toIntExact(values[1]))
+                        .salesCount(Math.toIntExact(values[2]))
+                        .profitMargin(product.getProfitMargin())
+                        .build());
+            }
+            return TopProductsResponse.builder()
+                    .products(topProducts)
+                    .build();
+        }
+
+        CategoryDistributionResponse categoryDistribution(Map<Long, Product> products) {
+            Map<String, Long> productsByCategory = new HashMap<>();
+            products.values().forEach(product -> productsByCategory.merge(product.getCategory(), 1L, Long::sum));
+
+            Map<String, Money> revenueByCategory = new HashMap<>();
+            Money totalRevenue = Money.ZERO;
+            for (Map.Entry<Long, long[]> entry : perProduct.entrySet()) {
+                Product product = products.get(entry.getKey());
+                if (product == null) {
+                    continue;
+                }
+                Money revenue = Money.ofMinor(entry.getValue()[0]);
+                revenueByCategory.merge(product.getCategory(), revenue, Money::plus);
+                totalRevenue = totalRevenue.plus(revenue);
+            }
+
+            List<CategoryDistributionResponse.CategoryData> categories = new ArrayList<>();
+            for (Map.Entry<String, Money> entry : revenueByCategory.entrySet()) {
+                categories.add(CategoryDistributionResponse.CategoryData.builder()
+                        .category(entry.getKey())
+                        .totalRevenue(entry.getValue().toBigDecimal())
+                        .totalProducts(productsByCategory.getOrDefault(entry.getKey(), 0L))
+                        .percentage(entry.getValue().percentOf(totalRevenue))
+                        .build());
+            }
+            categories.sort(Comparator.comparing(CategoryDistributionResponse.CategoryData::getTotalRevenue).reversed());
+
+            return CategoryDistributionResponse.builder()
+                    .categories(categories)
+                    .build();
+        }
+
+        RevenueSummaryResponse revenueSummary() {
+            return RevenueSummaryResponse.builder()
+                    .today(periodSummary(0))
+                    .week(periodSummary(3))
+                    .month(periodSummary(6))
+                    .build();
+        }
+
+        private void accumulate(int offset, long revenue, long cost, long transactions) {
+            summary[offset] = Math.addExact(summary[offset], revenue);
+            summary[offset + 1] = Math.addExact(summary[offset + 1], cost);
+            summary[offset + 2] = Math.addExact(summary[offset + 2], transactions);
+        }
+
+        private RevenueSummaryResponse.PeriodSummary periodSummary(int offset) {
+            Money revenue = Money.ofMinor(summary[offset]);
+            return RevenueSummaryResponse.PeriodSummary.builder()
+                    .revenue(revenue.toBigDecimal())
+                    .profit(revenue.minus(Money.ofMinor(summary[offset + 1])).toBigDecimal())
+                    .transactions(summary[offset + 2])
+                    .build();
+        }
+    }
+}
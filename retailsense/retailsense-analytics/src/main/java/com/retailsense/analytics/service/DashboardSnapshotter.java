@@ -0,0 +1,102 @@
+package com.retailsense.analytics.service;
+
+import com.retailsense.analytics.dto.DashboardResponse;
+import com.retailsense.product.event.ProductChangedEvent;
+import com.retailsense.sales.event.SaleRecordedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a precomputed dashboard (default parameters) so the common dashboard request is a
+ * pointer read with no database work. A background tick recomputes it once it is
+ * interval-ms old, or sooner once sales-threshold sales (or any product edit) have
+ * committed since it was taken, and swaps it in atomically; readers never see a partly
+ * built snapshot. Staleness is bounded by interval-ms plus one compute and is reported to
+ * clients as snapshotAge.
+ */
+@Component
+@Slf4j
+public class DashboardSnapshotter {
+
+    public static final int DEFAULT_DAYS = 7;
+    public static final int DEFAULT_LIMIT = 5;
+    public static final String DEFAULT_SORT_BY = "revenue";
+    public static final String DEFAULT_PERIOD = "week";
+
+    private record Snapshot(DashboardResponse dashboard, long takenAt) {
+    }
+
+    private final DashboardService dashboardService;
+    private final long intervalMs;
+    private final long salesThreshold;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong changesSinceSnapshot = new AtomicLong();
+
+    public DashboardSnapshotter(DashboardService dashboardService,
+                                @Value("${retailsense.analytics.snapshot.interval-ms:10000}") long intervalMs,
+                                @Value("${retailsense.analytics.snapshot.sales-threshold:100}") long salesThreshold) {
+        this.dashboardService = dashboardService;
+        this.intervalMs = intervalMs;
+        this.salesThreshold = salesThreshold;
+    }
+
+    /**
+     * The current snapshot, if the parameters are the defaults and one has been taken
+     */
+    public Optional<DashboardResponse> getDashboard(int days, int limit, String sortBy, String period) {
+        Snapshot snapshot = current.get();
+        if (snapshot == null || days != DEFAULT_DAYS || limit != DEFAULT_LIMIT
+                || !DEFAULT_SORT_BY.equals(sortBy) || !DEFAULT_PERIOD.equals(period)) {
+            return Optional.empty();
+        }
+        // Shallow copy: the parts are shared and never modified
+        return Optional.of(snapshot.dashboard().toBuilder()
+                .snapshotAge(System.currentTimeMillis() - snapshot.takenAt())
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${retailsense.analytics.snapshot.check-interval-ms:1000}")
+    public void refreshIfDue() {
+        Snapshot snapshot = current.get();
+        boolean expired = snapshot == null || System.currentTimeMillis() - snapshot.takenAt() >= intervalMs;
+        if (!expired && changesSinceSnapshot.get() < salesThreshold) {
+            return;
+        }
+        refresh();
+    }
+
+    void refresh() {
+        // Changes committed from here on are not guaranteed to be in this snapshot
+        long changes = changesSinceSnapshot.getAndSet(0);
+        long started = System.currentTimeMillis();
+        try {
+            DashboardResponse dashboard = dashboardService.getDashboard(
+                    DEFAULT_DAYS, DEFAULT_LIMIT, DEFAULT_SORT_BY, DEFAULT_PERIOD);
+            current.set(new Snapshot(dashboard, started));
+            log.debug("Dashboard snapshot taken in {} ms after {} changes", System.currentTimeMillis() - started, changes);
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot and retry on the next tick
+            changesSinceSnapshot.addAndGet(changes);
+            log.warn("Dashboard snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onSaleRecorded(SaleRecordedEvent event) {
+        changesSinceSnapshot.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // Names, categories and stock levels show on the dashboard; a single edit is enough to refresh
+        changesSinceSnapshot.addAndGet(salesThreshold);
+    }
+}
@@ -0,0 +1,65 @@
+package com.retailsense.analytics.service;
+
+import java.util.stream.IntStream;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013): keeps the first and last
+ * points and, from each of threshold - 2 equal slices in between, the point forming the
+ * largest triangle with the previously kept point and the average of the next slice. Peaks
+ * and dips survive, unlike plain averaging or striding. O(n).
+ */
+final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Indices of the points to keep, ascending; all of them if there are no more than threshold
+     */
+    static int[] select(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n || threshold < 3) {
+            return IntStream.range(0, n).toArray();
+        }
+
+        int[] selected = new int[threshold];
+        int previous = 0;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next slice is the triangle's third corner
+            int nextStart = sliceStart(i + 1, n, threshold);
+            int nextEnd = Math.min(sliceStart(i + 2, n, threshold), n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            int start = sliceStart(i, n, threshold);
+            int end = sliceStart(i + 1, n, threshold);
+            int best = start;
+            double bestArea = -1;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((x[previous] - avgX) * (y[j] - y[previous])
+                        - (x[previous] - x[j]) * (avgY - y[previous]));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = j;
+                }
+            }
+            selected[i + 1] = best;
+            previous = best;
+        }
+        selected[threshold - 1] = n - 1;
+        return selected;
+    }
+
+    // First index of slice i; exact integer division, so the last slice ends at n - 1 (a
+    // floating-point slice size can round it one short and skip point n - 2)
+    private static int sliceStart(int i, int n, int threshold) {
+        return (int) ((long) i * (n - 2) / (threshold - 2)) + 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.retailsense.analytics.sketch;
+
+/**
+ * Count-Min sketch (Cormode and Muthukrishnan) of non-negative weights per product id.
+ * Error bounds, for total weight N: an estimate never undercounts, and with probability
+ * at least 1 - e^-depth it overcounts by at most e * N / width.
+ * Sketches of the same shape merge by adding cells. Not thread-safe; callers synchronize.
+ */
+class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[][] cells;
+    private long totalWeight;
+
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.cells = new long[depth][width];
+    }
+
+    void add(long item, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        totalWeight = Math.addExact(totalWeight, weight);
+        for (int row = 0; row < depth; row++) {
+            int column = column(item, row);
+            cells[row][column] = Math.addExact(cells[row][column], weight);
+        }
+    }
+
+    long estimate(long item) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row][column(item, row)]);
+        }
+        return estimate;
+    }
+
+    void addAll(CountMinSketch other) {
+        totalWeight = Math.addExact(totalWeight, other.totalWeight);
+        for (int row = 0; row < depth; row++) {
+            for (int column = 0; column < width; column++) {
+                cells[row][column] = Math.addExact(cells[row][column], other.cells[row][column]);
+            }
+        }
+    }
+
+    CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(depth, width);
+        copy.addAll(this);
+        return copy;
+    }
+
+    /**
+     * Overestimate that holds with probability 1 - e^-depth
+     */
+    long errorBound() {
+        return (long) Math.ceil(Math.E * totalWeight / width);
+    }
+
+    // Independent hash per row: a different odd multiplier, then a 64-bit finalizer
+    private int column(long item, int row) {
+        long hash = (item + 1) * (0x9E3779B97F4A7C15L + 2L * row);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) width);
+    }
+}
@@ -0,0 +1,122 @@
+package com.retailsense.analytics.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) over product ids, holding at most
+ * capacity counters.
+ * Error bounds, for total weight N: every tracked count overestimates the true count by at
+ * most its own error field, which is at most N / capacity; and every product whose true
+ * count exceeds N / capacity is guaranteed to be tracked. Summaries merge (Agarwal et al.)
+ * with the same bound over the combined weight.
+ * Not thread-safe; callers synchronize.
+ */
+class SpaceSaving {
+
+    record Counter(long item, long count, long error) {
+    }
+
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingLong(Counter::count)
+            .thenComparingLong(Counter::item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long totalWeight;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add weight to item: O(log capacity)
+     */
+    void add(long item, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        totalWeight = Math.addExact(totalWeight, weight);
+
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            put(new Counter(item, Math.addExact(counter.count(), weight), counter.error()));
+        } else if (counters.size() < capacity) {
+            put(new Counter(item, weight, 0));
+        } else {
+            // Replace the smallest counter; its count becomes the newcomer's error
+            Counter smallest = byCount.pollFirst();
+            counters.remove(smallest.item());
+            put(new Counter(item, Math.addExact(smallest.count(), weight), smallest.count()));
+        }
+    }
+
+    long totalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Largest possible overestimate of any count in this summary
+     */
+    long maxError() {
+        return counters.size() < capacity ? 0 : byCount.first().count();
+    }
+
+    Iterable<Counter> counters() {
+        return counters.values();
+    }
+
+    SpaceSaving copy() {
+        SpaceSaving copy = new SpaceSaving(capacity);
+        copy.totalWeight = totalWeight;
+        counters.values().forEach(copy::put);
+        return copy;
+    }
+
+    /**
+     * Merge summaries into a new one of the given capacity. A product missing from a full
+     * summary may still have up to that summary's minimum count there, so that minimum is
+     * added to both its count and its error.
+     */
+    static SpaceSaving merge(List<SpaceSaving> summaries, int capacity) {
+        Map<Long, long[]> combined = new HashMap<>();
+        long totalWeight = 0;
+        long allMissing = 0;
+        for (SpaceSaving summary : summaries) {
+            totalWeight = Math.addExact(totalWeight, summary.totalWeight);
+            allMissing = Math.addExact(allMissing, summary.maxError());
+        }
+        long missingCount = allMissing;
+        for (SpaceSaving summary : summaries) {
+            long summaryMissing = summary.maxError();
+            for (Counter counter : summary.counters.values()) {
+                long[] sums = combined.computeIfAbsent(counter.item(), item -> new long[]{missingCount, missingCount});
+                // This summary tracks the item, so undo the missing-count allowance for it
+                sums[0] = Math.addExact(sums[0] - summaryMissing, counter.count());
+                sums[1] = Math.addExact(sums[1] - summaryMissing, counter.error());
+            }
+        }
+
+        List<Counter> merged = new ArrayList<>(combined.size());
+        combined.forEach((item, sums) -> merged.add(new Counter(item, sums[0], sums[1])));
+        merged.sort(BY_COUNT.reversed());
+
+        SpaceSaving result = new SpaceSaving(capacity);
+        result.totalWeight = totalWeight;
+        for (Counter counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+            result.put(counter);
+        }
+        return result;
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.item(), counter);
+        byCount.add(counter);
+    }
+}
@@ -0,0 +1,284 @@
+package com.retailsense.analytics.sketch;
+
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.common.util.Money;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.sales.dto.DailyProductTotals;
+import com.retailsense.sales.event.SaleRecordedEvent;
+import com.retailsense.sales.repository.SalesDailyProductRepository;
+import com.retailsense.sales.repository.SalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Approximate top-K products by revenue, units or transactions, kept in fixed-size sketches
+ * so a query's cost does not grow with the sales volume.
+ * One window per sale day (kept for retention-days) plus an all-time window. Each window
+ * holds, per metric, a Space-Saving summary of capacity k (which products are heavy) and a
+ * Count-Min sketch of width 16k (point estimates for every metric), so memory is O(k) per
+ * window. An all-time query costs O(k log k); a rolling window of n days merges n day
+ * windows at query time, O(n * k).
+ * Error bounds for a window with total weight N: a product whose true value exceeds N / k
+ * is always returned; reported values never undercount, and overcount by at most the
+ * returned error bound (N / k for the ranking metric, e * N / 16k with probability
+ * 1 - e^-4 for the other two).
+ * Warmed from the daily rollup at startup, then updated from each committed sale. Sales
+ * committed while the warm-up runs are queued; once it is done, the same snapshot is asked
+ * which of them it already saw (the rollup is updated in the sale's transaction), and only
+ * the others are added, so no sale is counted twice.
+ * Queries take the windows they need under the lock, mark them shared and merge them
+ * outside it; a sale into a shared window first replaces it with a copy, so a window a
+ * query holds never changes and sales only wait for the lookup.
+ */
+@Component
+@Slf4j
+public class TopProductsSketch {
+
+    public enum Metric {
+        REVENUE,
+        UNITS,
+        TRANSACTIONS;
+
+        public static Metric fromSortBy(String sortBy) {
+            return switch (sortBy) {
+                case "quantity" -> UNITS;
+                case "frequency" -> TRANSACTIONS;
+                default -> REVENUE;
+            };
+        }
+    }
+
+    /**
+     * Estimated totals for one product; revenue is in minor units
+     */
+    public record Estimate(long productId, long revenueMinor, long units, long transactions) {
+    }
+
+    /**
+     * Top products with the largest possible overestimate of each reported metric
+     */
+    public record Result(List<Estimate> products, long revenueErrorMinor, long unitsError, long transactionsError) {
+    }
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH_PER_COUNTER = 16;
+
+    private final SalesDailyProductRepository salesDailyProductRepository;
+    private final SalesRepository salesRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int capacity;
+    private final int retentionDays;
+
+    // Guarded by this
+    private final TreeMap<Integer, Window> days = new TreeMap<>();
+    private Window allTime;
+    private boolean ready;
+    private final List<SaleRecordedEvent> pending = new ArrayList<>();
+
+    public TopProductsSketch(SalesDailyProductRepository salesDailyProductRepository,
+                             SalesRepository salesRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${retailsense.analytics.sketch.capacity:64}") int capacity,
+                             @Value("${retailsense.analytics.sketch.retention-days:90}") int retentionDays) {
+        this.salesDailyProductRepository = salesDailyProductRepository;
+        this.salesRepository = salesRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Both warm-up queries must read the same snapshot
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.capacity = capacity;
+        this.retentionDays = retentionDays;
+        this.allTime = new Window(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        int firstRetainedDay = firstRetainedDay();
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<DailyProductTotals> rows = salesDailyProductRepository.streamAll()) {
+                rows.forEach(row -> {
+                    int day = (int) row.getSaleDay().toEpochDay();
+                    long revenue = Money.of(row.getRevenue()).minorUnits();
+                    synchronized (this) {
+                        add(day, firstRetainedDay, row.getProductId(), revenue, row.getUnitsSold(), row.getTransactions());
+                    }
+                });
+            }
+
+            // Sales still arriving wait on the lock, so none is missed between check and ready
+            synchronized (this) {
+                Set<Long> seen = pending.isEmpty() ? Set.of() : new HashSet<>(salesRepository.findExistingIds(
+                        pending.stream().map(SaleRecordedEvent::saleId).toList()));
+                pending.stream()
+                        .filter(event -> !seen.contains(event.saleId()))
+                        .forEach(this::add);
+                pending.clear();
+                ready = true;
+            }
+        });
+
+        log.info("Top products sketch warmed up in {} ms ({} day windows, k = {})",
+                System.currentTimeMillis() - started, days.size(), capacity);
+    }
+
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public synchronized void onSaleRecorded(SaleRecordedEvent event) {
+        if (ready) {
+            add(event);
+        } else {
+            pending.add(event);
+        }
+    }
+
+    /**
+     * Top products over the last n days (as in the sales trend), or all time when days is null
+     */
+    public Result topProducts(int limit, Metric metric, Integer days) {
+        if (limit < 1 || limit > capacity) {
+            throw new ValidationException("Approximate top products supports a limit between 1 and " + capacity);
+        }
+        if (days != null && (days < 0 || days > retentionDays)) {
+            throw new ValidationException("Approximate top products supports days between 0 and " + retentionDays);
+        }
+
+        List<Window> windows;
+        synchronized (this) {
+            windows = days == null
+                    ? List.of(allTime)
+                    : new ArrayList<>(this.days.tailMap((int) LocalDate.now().minusDays(days).toEpochDay()).values());
+            windows.forEach(window -> window.shared = true);
+        }
+        Window window = windows.size() == 1 ? windows.get(0) : Window.merge(windows, capacity);
+
+        SpaceSaving ranking = window.heavy[metric.ordinal()];
+        List<Estimate> estimates = new ArrayList<>();
+        for (SpaceSaving.Counter counter : ranking.counters()) {
+            long[] values = new long[Metric.values().length];
+            for (Metric m : Metric.values()) {
+                values[m.ordinal()] = window.counts[m.ordinal()].estimate(counter.item());
+            }
+            // Both structures only overcount, so the smaller figure is the better one
+            values[metric.ordinal()] = Math.min(values[metric.ordinal()], counter.count());
+            estimates.add(new Estimate(counter.item(), values[0], values[1], values[2]));
+        }
+        estimates.sort(Comparator.comparingLong((Estimate e) -> -value(e, metric)).thenComparingLong(Estimate::productId));
+
+        long[] errors = new long[Metric.values().length];
+        for (Metric m : Metric.values()) {
+            errors[m.ordinal()] = window.counts[m.ordinal()].errorBound();
+        }
+        errors[metric.ordinal()] = Math.min(errors[metric.ordinal()], ranking.maxError());
+
+        return new Result(estimates.subList(0, Math.min(limit, estimates.size())), errors[0], errors[1], errors[2]);
+    }
+
+    private static long value(Estimate estimate, Metric metric) {
+        return switch (metric) {
+            case REVENUE -> estimate.revenueMinor();
+            case UNITS -> estimate.units();
+            case TRANSACTIONS -> estimate.transactions();
+        };
+    }
+
+    private void add(SaleRecordedEvent event) {
+        add((int) event.saleDate().toLocalDate().toEpochDay(), firstRetainedDay(), event.productId(),
+                Money.of(event.totalRevenue()).minorUnits(), event.quantitySold(), 1);
+    }
+
+    private void add(int day, int firstRetainedDay, long productId, long revenue, long units, long transactions) {
+        allTime = allTime.writable();
+        allTime.add(productId, revenue, units, transactions);
+        if (day >= firstRetainedDay) {
+            days.compute(day, (d, window) -> window == null ? new Window(capacity) : window.writable())
+                    .add(productId, revenue, units, transactions);
+        }
+        days.headMap(firstRetainedDay).clear();
+    }
+
+    private int firstRetainedDay() {
+        return (int) LocalDate.now().minusDays(retentionDays).toEpochDay();
+    }
+
+    // Sketches for one window, indexed by Metric ordinal
+    private static final class Window {
+        final SpaceSaving[] heavy = new SpaceSaving[Metric.values().length];
+        final CountMinSketch[] counts = new CountMinSketch[Metric.values().length];
+        // Handed to a query, which may still be reading it; guarded by the TopProductsSketch lock
+        boolean shared;
+
+        Window(int capacity) {
+            for (Metric metric : Metric.values()) {
+                heavy[metric.ordinal()] = new SpaceSaving(capacity);
+                counts[metric.ordinal()] = new CountMinSketch(DEPTH, WIDTH_PER_COUNTER * capacity);
+            }
+        }
+
+        private Window() {
+        }
+
+        // This window, or a private copy of it once a query holds it
+        Window writable() {
+            if (!shared) {
+                return this;
+            }
+            Window copy = new Window();
+            for (int m = 0; m < Metric.values().length; m++) {
+                copy.heavy[m] = heavy[m].copy();
+                copy.counts[m] = counts[m].copy();
+            }
+            return copy;
+        }
+
+        void add(long productId, long revenue, long units, long transactions) {
+            long[] weights = {revenue, units, transactions};
+            for (int m = 0; m < weights.length; m++) {
+                heavy[m].add(productId, weights[m]);
+                counts[m].add(productId, weights[m]);
+            }
+        }
+
+        static Window merge(Collection<Window> windows, int capacity) {
+            Window merged = new Window();
+            for (int m = 0; m < Metric.values().length; m++) {
+                List<SpaceSaving> summaries = new ArrayList<>(windows.size());
+                CountMinSketch counts = new CountMinSketch(DEPTH, WIDTH_PER_COUNTER * capacity);
+                for (Window window : windows) {
+                    summaries.add(window.heavy[m]);
+                    counts.addAll(window.counts[m]);
+                }
+                merged.heavy[m] = SpaceSaving.merge(summaries, capacity);
+                merged.counts[m] = counts;
+            }
+            return merged;
+        }
+    }
+}
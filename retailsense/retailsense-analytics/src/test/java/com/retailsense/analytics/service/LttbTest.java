@@ -0,0 +1,82 @@
+package com.retailsense.analytics.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Downsampling keeps the ends and the extremes, and every interior point is a candidate
+ * for exactly one slice.
+ */
+class LttbTest {
+
+    @Test
+    void keepsEveryPointWhenThereAreNoMoreThanThreshold() {
+        double[] x = {0, 1, 2, 3};
+        double[] y = {5, 1, 4, 2};
+
+        assertThat(Lttb.select(x, y, 4)).containsExactly(0, 1, 2, 3);
+        assertThat(Lttb.select(x, y, 10)).containsExactly(0, 1, 2, 3);
+        assertThat(Lttb.select(new double[0], new double[0], 5)).isEmpty();
+    }
+
+    @Test
+    void keepsEveryPointBelowThreeTargetPoints() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {1, 2, 3, 4, 5};
+
+        assertThat(Lttb.select(x, y, 2)).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void returnsThresholdAscendingIndicesWithTheFirstAndLast() {
+        int n = 1000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i / 25.0) * 100 + i % 7;
+        }
+
+        int[] selected = Lttb.select(x, y, 50);
+
+        assertThat(selected).hasSize(50).startsWith(0).endsWith(n - 1);
+        for (int i = 1; i < selected.length; i++) {
+            assertThat(selected[i]).isGreaterThan(selected[i - 1]);
+        }
+    }
+
+    @Test
+    void keepsAPeakAndADip() {
+        int n = 200;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = 10;
+        }
+        y[57] = 500;
+        y[141] = -300;
+
+        assertThat(Lttb.select(x, y, 10)).contains(57, 141);
+    }
+
+    @Test
+    void lastSliceReachesThePointBeforeTheLast() {
+        // Sizes where a floating-point slice width once ended the last slice at n - 3
+        for (int n = 4; n <= 300; n++) {
+            for (int threshold = 3; threshold < n; threshold++) {
+                double[] x = new double[n];
+                double[] y = new double[n];
+                for (int i = 0; i < n; i++) {
+                    x[i] = i;
+                }
+                y[n - 2] = 100;
+
+                assertThat(Lttb.select(x, y, threshold))
+                        .as("n = %d, threshold = %d", n, threshold)
+                        .contains(n - 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.retailsense.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Count-Min estimates never undercount and, for all but a small share of items, overcount
+ * by no more than errorBound(); merged sketches estimate like one fed both streams.
+ */
+class CountMinSketchTest {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 256;
+
+    @Test
+    void estimatesNeverUndercountAndMostStayWithinTheBound() {
+        Map<Long, Long> truth = new HashMap<>();
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        feed(new Random(11), 50_000, 2_000, truth, sketch);
+
+        long bound = sketch.errorBound();
+        int withinBound = 0;
+        for (Map.Entry<Long, Long> entry : truth.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as("item %d", entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() <= bound) {
+                withinBound++;
+            }
+        }
+        // The bound holds per item with probability 1 - e^-4, about 98%
+        assertThat((double) withinBound / truth.size()).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void errorBoundScalesWithTotalWeight() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        assertThat(sketch.errorBound()).isZero();
+
+        sketch.add(1, 1_000);
+        sketch.add(2, 0);
+        sketch.add(3, -5);
+
+        assertThat(sketch.errorBound()).isEqualTo((long) Math.ceil(Math.E * 1_000 / WIDTH));
+        assertThat(sketch.estimate(1)).isEqualTo(1_000);
+    }
+
+    @Test
+    void mergedSketchMatchesOneFedBothStreams() {
+        CountMinSketch first = new CountMinSketch(DEPTH, WIDTH);
+        CountMinSketch second = new CountMinSketch(DEPTH, WIDTH);
+        CountMinSketch both = new CountMinSketch(DEPTH, WIDTH);
+        Map<Long, Long> truth = new HashMap<>();
+        feed(new Random(5), 3_000, 1_000, truth, first, both);
+        feed(new Random(6), 4_000, 1_000, truth, second, both);
+
+        CountMinSketch merged = first.copy();
+        merged.addAll(second);
+
+        assertThat(merged.errorBound()).isEqualTo(both.errorBound());
+        for (long item = 0; item < 1_000; item++) {
+            assertThat(merged.estimate(item)).as("item %d", item).isEqualTo(both.estimate(item));
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        sketch.add(1, 5);
+        CountMinSketch copy = sketch.copy();
+        sketch.add(1, 5);
+
+        assertThat(copy.estimate(1)).isEqualTo(5);
+        assertThat(sketch.estimate(1)).isEqualTo(10);
+    }
+
+    private static void feed(Random random, int events, int items, Map<Long, Long> truth, CountMinSketch... sketches) {
+        for (int i = 0; i < events; i++) {
+            long item = random.nextInt(items);
+            long weight = 1 + random.nextInt(100);
+            truth.merge(item, weight, Long::sum);
+            for (CountMinSketch sketch : sketches) {
+                sketch.add(item, weight);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.retailsense.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Space-Saving bounds: counts never undercount and overcount by at most their error, which
+ * is at most N / capacity, and every item heavier than N / capacity is tracked; the same
+ * holds after a merge, over the combined weight.
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 16;
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        summary.add(1, 5);
+        summary.add(2, 3);
+        summary.add(1, 2);
+        summary.add(3, 0);
+        summary.add(4, -7);
+
+        assertThat(summary.counters()).containsExactlyInAnyOrder(
+                new SpaceSaving.Counter(1, 7, 0),
+                new SpaceSaving.Counter(2, 3, 0));
+        assertThat(summary.totalWeight()).isEqualTo(10);
+        assertThat(summary.maxError()).isZero();
+    }
+
+    @Test
+    void boundsHoldOnASkewedStream() {
+        Map<Long, Long> truth = new HashMap<>();
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        feed(new Random(7), 20_000, 500, truth, summary);
+
+        assertBounds(summary, truth);
+    }
+
+    @Test
+    void boundsHoldAfterMerging() {
+        Map<Long, Long> truth = new HashMap<>();
+        SpaceSaving first = new SpaceSaving(CAPACITY);
+        SpaceSaving second = new SpaceSaving(CAPACITY);
+        SpaceSaving third = new SpaceSaving(CAPACITY);
+        feed(new Random(1), 5_000, 300, truth, first);
+        feed(new Random(2), 8_000, 300, truth, second);
+        feed(new Random(3), 100, 300, truth, third);
+
+        SpaceSaving merged = SpaceSaving.merge(List.of(first, second, third), CAPACITY);
+
+        assertThat(merged.totalWeight()).isEqualTo(first.totalWeight() + second.totalWeight() + third.totalWeight());
+        assertBounds(merged, truth);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        summary.add(1, 5);
+        SpaceSaving copy = summary.copy();
+        summary.add(1, 5);
+        summary.add(2, 1);
+
+        assertThat(copy.counters()).containsExactly(new SpaceSaving.Counter(1, 5, 0));
+        assertThat(copy.totalWeight()).isEqualTo(5);
+    }
+
+    // Weights 1-10 on items drawn with a heavy head (item ~ items * u^3)
+    private static void feed(Random random, int events, int items, Map<Long, Long> truth, SpaceSaving summary) {
+        for (int i = 0; i < events; i++) {
+            double u = random.nextDouble();
+            long item = (long) (items * u * u * u);
+            long weight = 1 + random.nextInt(10);
+            truth.merge(item, weight, Long::sum);
+            summary.add(item, weight);
+        }
+    }
+
+    private static void assertBounds(SpaceSaving summary, Map<Long, Long> truth) {
+        long total = truth.values().stream().mapToLong(Long::longValue).sum();
+        long threshold = total / CAPACITY;
+        assertThat(summary.totalWeight()).isEqualTo(total);
+        assertThat(summary.maxError()).isLessThanOrEqualTo(threshold);
+
+        Map<Long, SpaceSaving.Counter> tracked = new HashMap<>();
+        for (SpaceSaving.Counter counter : summary.counters()) {
+            tracked.put(counter.item(), counter);
+            long actual = truth.getOrDefault(counter.item(), 0L);
+            assertThat(counter.count()).as("item %d", counter.item()).isGreaterThanOrEqualTo(actual);
+            assertThat(counter.count() - counter.error()).as("item %d", counter.item()).isLessThanOrEqualTo(actual);
+            assertThat(counter.error()).isLessThanOrEqualTo(summary.maxError());
+        }
+        assertThat(tracked).hasSizeLessThanOrEqualTo(CAPACITY);
+        truth.forEach((item, actual) -> {
+            if (actual > threshold) {
+                assertThat(tracked).as("heavy item %d", item).containsKey(item);
+            }
+        });
+    }
+}
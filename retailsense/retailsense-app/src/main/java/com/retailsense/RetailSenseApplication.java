@@ -3,8 +3,10 @@ package com.retailsense;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.retailsense")
+@EnableScheduling
 public class RetailSenseApplication {
     public static void main(String[] args) {
         SpringApplication.run(RetailSenseApplication.class, args);
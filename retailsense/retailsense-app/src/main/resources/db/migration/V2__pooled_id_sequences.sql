@@ -0,0 +1,16 @@
+-- Entity IDs move from IDENTITY columns to pooled sequences so Hibernate can batch inserts.
+-- Hibernate allocates 50 ids per sequence call (pooled-lo), so each sequence increments by 50
+-- and starts after the highest id already in its table.
+DO $$
+DECLARE
+    t       text;
+    next_id bigint;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['users', 'products', 'sales', 'ai_insights'] LOOP
+        next_id := 1;
+        IF to_regclass(t) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) + 1 FROM %I', t) INTO next_id;
+        END IF;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH %s INCREMENT BY 50', t || '_seq', next_id);
+    END LOOP;
+END $$;
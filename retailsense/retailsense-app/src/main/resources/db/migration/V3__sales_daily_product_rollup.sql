@@ -0,0 +1,28 @@
+-- Daily per-product sales rollup read by the analytics endpoints.
+-- Maintained by SalesService in the same transaction as each sale; backfilled here from history.
+CREATE TABLE IF NOT EXISTS sales_daily_product (
+    sale_day     date           NOT NULL,
+    product_id   bigint         NOT NULL,
+    revenue      numeric(14, 2) NOT NULL,
+    units_sold   bigint         NOT NULL,
+    transactions bigint         NOT NULL,
+    cost         numeric(14, 2) NOT NULL,
+    PRIMARY KEY (sale_day, product_id)
+);
+
+DO $$
+BEGIN
+    IF to_regclass('sales') IS NOT NULL AND to_regclass('products') IS NOT NULL THEN
+        INSERT INTO sales_daily_product (sale_day, product_id, revenue, units_sold, transactions, cost)
+        SELECT CAST(s.sale_date AS date),
+               s.product_id,
+               SUM(s.sale_price * s.quantity_sold),
+               SUM(s.quantity_sold),
+               COUNT(*),
+               SUM(p.purchase_price * s.quantity_sold)
+        FROM sales s
+        JOIN products p ON p.id = s.product_id
+        GROUP BY CAST(s.sale_date AS date), s.product_id
+        ON CONFLICT (sale_day, product_id) DO NOTHING;
+    END IF;
+END $$;
@@ -0,0 +1,21 @@
+-- Snapshot the unit cost on each sale so profit is a plain SUM over sales
+-- and is not rewritten when a product's purchase price is edited.
+-- Existing sales are backfilled with the current purchase price, the best value available.
+DO $$
+BEGIN
+    IF to_regclass('sales') IS NOT NULL THEN
+        ALTER TABLE sales ADD COLUMN IF NOT EXISTS unit_cost numeric(10, 2);
+
+        UPDATE sales s
+        SET unit_cost = p.purchase_price
+        FROM products p
+        WHERE p.id = s.product_id AND s.unit_cost IS NULL;
+
+        ALTER TABLE sales ALTER COLUMN unit_cost SET NOT NULL;
+
+        ALTER TABLE sales ADD COLUMN IF NOT EXISTS total_cost numeric(12, 2)
+            GENERATED ALWAYS AS (unit_cost * quantity_sold) STORED;
+        ALTER TABLE sales ADD COLUMN IF NOT EXISTS total_profit numeric(12, 2)
+            GENERATED ALWAYS AS ((sale_price - unit_cost) * quantity_sold) STORED;
+    END IF;
+END $$;
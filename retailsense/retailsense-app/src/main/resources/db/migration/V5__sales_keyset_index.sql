@@ -0,0 +1,7 @@
+-- Supports keyset pagination of sales history on (sale_date, id)
+DO $$
+BEGIN
+    IF to_regclass('sales') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_sales_sale_date_id ON sales (sale_date, id);
+    END IF;
+END $$;
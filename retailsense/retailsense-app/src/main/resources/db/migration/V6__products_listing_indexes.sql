@@ -0,0 +1,10 @@
+-- Supports keyset pagination of the product listing on (name, id) and (selling_price, id),
+-- and the category filter
+DO $$
+BEGIN
+    IF to_regclass('products') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_products_name_id ON products (name, id);
+        CREATE INDEX IF NOT EXISTS idx_products_selling_price_id ON products (selling_price, id);
+        CREATE INDEX IF NOT EXISTS idx_products_category ON products (category);
+    END IF;
+END $$;
@@ -0,0 +1,24 @@
+-- Sale totals are now written by the application (Sale.onCreate). A sales table created by
+-- ddl-auto has plain total columns that nothing wrote, so profit read as 0; one migrated by
+-- V4 has generated columns, which refuse written values. The expressions are dropped (the
+-- stored values stay) and rows left without totals are filled in.
+DO $$
+DECLARE
+    c text;
+BEGIN
+    IF to_regclass('sales') IS NOT NULL THEN
+        FOREACH c IN ARRAY ARRAY['total_revenue', 'total_cost', 'total_profit'] LOOP
+            IF EXISTS (SELECT 1 FROM information_schema.columns
+                       WHERE table_schema = current_schema() AND table_name = 'sales'
+                         AND column_name = c AND is_generated = 'ALWAYS') THEN
+                EXECUTE format('ALTER TABLE sales ALTER COLUMN %I DROP EXPRESSION', c);
+            END IF;
+        END LOOP;
+
+        UPDATE sales
+        SET total_revenue = sale_price * quantity_sold,
+            total_cost    = unit_cost * quantity_sold,
+            total_profit  = (sale_price - unit_cost) * quantity_sold
+        WHERE total_revenue IS NULL OR total_cost IS NULL OR total_profit IS NULL;
+    END IF;
+END $$;
@@ -0,0 +1,17 @@
+package com.retailsense.common.concurrent;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesce concurrent calls: while a call with equal arguments is in flight, later callers
+ * wait for and share its result instead of running the method again. Nothing is kept once
+ * the call completes. Only for read-only methods whose arguments have value equality.
+ * On a class, applies to every public method.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+}
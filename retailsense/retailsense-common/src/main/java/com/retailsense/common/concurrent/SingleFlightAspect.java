@@ -0,0 +1,83 @@
+package com.retailsense.common.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements @SingleFlight with one shared CompletableFuture per in-flight method and
+ * argument list. The first caller runs the method on its own thread (so its transaction
+ * and security context apply); callers arriving meanwhile block on the future.
+ * Runs just inside caching (which has its own per-key coalescing) and before transactions,
+ * so coalesced callers do no work at all.
+ * Publishes singleflight.calls tagged with the method and role=leader|coalesced.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class SingleFlightAspect {
+
+    // Keyed on the Method, so overloads with equal arguments stay apart
+    private record CallKey(Method method, List<Object> args) {
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Around("@annotation(com.retailsense.common.concurrent.SingleFlight) || " +
+            "(@within(com.retailsense.common.concurrent.SingleFlight) && execution(public * *(..)))")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().toShortString();
+        CallKey key = new CallKey(((MethodSignature) joinPoint.getSignature()).getMethod(), Arrays.asList(joinPoint.getArgs()));
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            counter(method, "coalesced").increment();
+            log.debug("Coalesced call to {}", method);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        counter(method, "leader").increment();
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private Counter counter(String method, String role) {
+        return Counter.builder("singleflight.calls")
+                .description("Calls to @SingleFlight methods, by whether they ran or shared an in-flight call")
+                .tag("method", method)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+}
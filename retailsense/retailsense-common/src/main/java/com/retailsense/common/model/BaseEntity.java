@@ -11,8 +11,9 @@ import java.time.LocalDateTime;
 @Data
 public abstract class BaseEntity {
 
+    // One pooled sequence per table (<table>_seq, increment 50) so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(name = "created_at", updatable = false)
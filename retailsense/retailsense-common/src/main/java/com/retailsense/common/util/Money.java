@@ -0,0 +1,93 @@
+package com.retailsense.common.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money as a whole number of minor units (cents), for in-process aggregation.
+ * All arithmetic is overflow-checked and throws ArithmeticException instead of wrapping.
+ * Convert from BigDecimal when reading entities or projections and back only when
+ * building response DTOs.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    public static Money of(BigDecimal amount) {
+        return new Money(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor));
+    }
+
+    /**
+     * Divide by a count, rounding half-up to the nearest minor unit
+     */
+    public Money dividedBy(long divisor) {
+        return new Money(divideHalfUp(minorUnits, divisor));
+    }
+
+    /**
+     * Share of total as a percentage rounded half-up to two decimals (0.0 when total is zero)
+     */
+    public double percentOf(Money total) {
+        if (total.minorUnits == 0) {
+            return 0.0;
+        }
+        return divideHalfUp(Math.multiplyExact(minorUnits, 10_000L), total.minorUnits) / 100.0;
+    }
+
+    /**
+     * Margin of price over this cost as a whole percentage (the ratio is rounded half-up
+     * to two decimals first), with scale 2 - e.g. 8.00 to 10.00 gives 25.00
+     */
+    public BigDecimal marginPercent(Money price) {
+        if (minorUnits == 0) {
+            return BigDecimal.ZERO;
+        }
+        long ratioHundredths = divideHalfUp(Math.multiplyExact(price.minus(this).minorUnits, 100L), minorUnits);
+        return BigDecimal.valueOf(Math.multiplyExact(ratioHundredths, 100L), SCALE);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // Integer division rounding half away from zero, like RoundingMode.HALF_UP
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,110 @@
+package com.retailsense.common.version;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Monotonic data version per domain, bumped by every write, for ETags on GET responses.
+ * Bumps happen after commit and after the transactional event listeners (caches, cube,
+ * sketches) have applied the write, so a reader that sees the new version also reads the
+ * new data. AFTER_COMMIT listeners run among the completion callbacks, ordered by @Order,
+ * so those listeners carry @Order(BEFORE_BUMP) or lower.
+ * Versions start over on restart; the startup time in every tag keeps tags from an earlier
+ * run from matching.
+ */
+@Component
+public class DataVersions {
+
+    /**
+     * Order of the bump among the completion callbacks; it runs last
+     */
+    public static final int BUMP_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    /**
+     * Order for AFTER_COMMIT listeners whose state tagged responses read
+     */
+    public static final int BEFORE_BUMP = BUMP_ORDER - 1;
+
+    public enum Domain {
+        SALES,
+        PRODUCTS,
+        INSIGHTS
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Domain, AtomicLong> versions = new EnumMap<>(Domain.class);
+
+    public DataVersions() {
+        for (Domain domain : Domain.values()) {
+            versions.put(domain, new AtomicLong());
+        }
+    }
+
+    public long current(Domain domain) {
+        return versions.get(domain).get();
+    }
+
+    /**
+     * Bump the domain once the current transaction commits (at once outside a transaction).
+     * Several bumps in one transaction count as one.
+     */
+    public void bump(Domain domain) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.get(domain).incrementAndGet();
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Domain> pending = (Set<Domain>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Domain> domains = EnumSet.noneOf(Domain.class);
+            TransactionSynchronizationManager.bindResource(this, domains);
+            TransactionSynchronizationManager.registerSynchronization(new BumpOnCommit(domains));
+            pending = domains;
+        }
+        pending.add(domain);
+    }
+
+    /**
+     * Tag covering the given domains; callers add anything else the response depends on
+     */
+    public String tag(Domain... domains) {
+        return Stream.of(domains)
+                .map(domain -> domain.name().charAt(0) + Long.toString(current(domain)))
+                .collect(Collectors.joining("-", epoch + "-", ""));
+    }
+
+    private final class BumpOnCommit implements TransactionSynchronization {
+
+        private final Set<Domain> domains;
+
+        BumpOnCommit(Set<Domain> domains) {
+            this.domains = domains;
+        }
+
+        // AFTER_COMMIT listeners are completion callbacks too, and equal orders run in
+        // registration order; the bump is often registered first, so it must sort last
+        @Override
+        public int getOrder() {
+            return BUMP_ORDER;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataVersions.this);
+            if (status == STATUS_COMMITTED) {
+                domains.forEach(domain -> versions.get(domain).incrementAndGet());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.retailsense.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Money must round like the BigDecimal code it replaced (HALF_UP at the same scales) and
+ * throw rather than wrap on overflow.
+ */
+class MoneyTest {
+
+    @Test
+    void convertsFromBigDecimalRoundingHalfUpToCents() {
+        assertThat(Money.of(new BigDecimal("12")).minorUnits()).isEqualTo(1200);
+        assertThat(Money.of(new BigDecimal("1.005")).minorUnits()).isEqualTo(101);
+        assertThat(Money.of(new BigDecimal("1.0049")).minorUnits()).isEqualTo(100);
+        assertThat(Money.of(new BigDecimal("-1.005")).minorUnits()).isEqualTo(-101);
+    }
+
+    @Test
+    void convertsBackWithScaleTwo() {
+        assertThat(Money.ofMinor(5).toBigDecimal()).isEqualTo(new BigDecimal("0.05"));
+        assertThat(Money.ofMinor(-1234).toString()).isEqualTo("-12.34");
+        assertThat(Money.ZERO.toString()).isEqualTo("0.00");
+    }
+
+    @Test
+    void throwsInsteadOfWrapping() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e30"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void dividesLikeBigDecimalHalfUp() {
+        for (long amount = -1000; amount <= 1000; amount++) {
+            for (long divisor : new long[]{1, 2, 3, 7, -4, 100}) {
+                BigDecimal expected = BigDecimal.valueOf(amount, 2).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+
+                assertThat(Money.ofMinor(amount).dividedBy(divisor).toBigDecimal())
+                        .as("%d / %d", amount, divisor)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void percentOfRoundsToTwoDecimals() {
+        Money total = Money.ofMinor(300);
+
+        assertThat(Money.ofMinor(100).percentOf(total)).isEqualTo(33.33);
+        assertThat(Money.ofMinor(200).percentOf(total)).isEqualTo(66.67);
+        assertThat(total.percentOf(total)).isEqualTo(100.0);
+        assertThat(Money.ofMinor(100).percentOf(Money.ZERO)).isEqualTo(0.0);
+    }
+
+    @Test
+    void marginMatchesTheBigDecimalFormula() {
+        assertThat(Money.ofMinor(800).marginPercent(Money.ofMinor(1000))).isEqualTo(new BigDecimal("25.00"));
+        assertThat(Money.ZERO.marginPercent(Money.ofMinor(1000))).isEqualByComparingTo(BigDecimal.ZERO);
+
+        // The BigDecimal formula Product.getProfitMargin used before Money
+        for (long cost = 1; cost <= 400; cost += 3) {
+            for (long price = 0; price <= 900; price += 7) {
+                BigDecimal costAmount = BigDecimal.valueOf(cost, 2);
+                BigDecimal expected = BigDecimal.valueOf(price, 2).subtract(costAmount)
+                        .divide(costAmount, 2, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100));
+
+                assertThat(Money.ofMinor(cost).marginPercent(Money.ofMinor(price)))
+                        .as("cost %d, price %d", cost, price)
+                        .isEqualByComparingTo(expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.retailsense.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.retailsense.product.model.Product;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of products by id (size and expiry from
+ * retailsense.product.cache.spec; the expiry is a backstop, writes keep entries current).
+ * Entries are private copies, so callers can never change a cached product; and they are
+ * detached, so writes must load the managed entity from the repository instead.
+ * Writes reach the cache once their transaction commits, before any AFTER_COMMIT listener
+ * runs: created and edited products are put (never replacing a newer copy), while stock
+ * changes and deletes evict, since concurrent stock updates can commit in any order and
+ * the next read reloads the committed quantity. Every change is also published through
+ * ProductCacheInvalidation when one is configured.
+ * Misses are loaded outside the cache's per-key locks: an eviction runs in an after-commit
+ * callback, still holding its connection, and must never wait on a load that is itself
+ * waiting for a connection. So concurrent misses for one id may each read the database,
+ * and a load is only cached if nothing was evicted while it ran (the eviction may stand
+ * for a commit the load did not see).
+ * Metrics: cache.gets (hit/miss), cache.hit.ratio, cache.loads and cache.load.duration,
+ * tagged cache=products.
+ */
+@Component
+@Slf4j
+public class ProductCache implements MeterBinder {
+
+    static final String NAME = "products";
+
+    private final Cache<Long, Product> cache;
+    private final Optional<ProductCacheInvalidation> invalidation;
+    // Bumped by every eviction, so loads that overlap one are not cached
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public ProductCache(@Value("${retailsense.product.cache.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}") String spec,
+                        Optional<ProductCacheInvalidation> invalidation) {
+        this.cache = Caffeine.from(spec).build();
+        this.invalidation = invalidation;
+        invalidation.ifPresent(channel -> channel.subscribe(this::invalidate));
+    }
+
+    /**
+     * Cached product, loaded on a miss
+     */
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        Product cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        return load(List.of(id), ids -> loader.apply(id).stream().toList()).stream().findFirst();
+    }
+
+    /**
+     * Cached products for the ids, loading all misses with one call; unknown ids are skipped
+     */
+    public List<Product> getAll(Collection<Long> ids, Function<Collection<Long>, List<Product>> loader) {
+        Map<Long, Product> present = cache.getAllPresent(ids);
+        List<Long> missing = ids.stream().filter(id -> !present.containsKey(id)).distinct().toList();
+        List<Product> products = new ArrayList<>(present.values().stream().map(ProductCache::copy).toList());
+        if (!missing.isEmpty()) {
+            products.addAll(load(missing, loader));
+        }
+        return products;
+    }
+
+    // Read the products and cache them unless an eviction overlapped the read; returns copies
+    private List<Product> load(Collection<Long> ids, Function<Collection<Long>, List<Product>> loader) {
+        long generation = evictions.get();
+        long started = System.nanoTime();
+        List<Product> loaded = loader.apply(ids);
+        loadNanos.addAndGet(System.nanoTime() - started);
+        loads.incrementAndGet();
+
+        List<Product> products = new ArrayList<>(loaded.size());
+        for (Product product : loaded) {
+            Product fresh = copy(product);
+            // Checked inside compute: evictions bump the generation before invalidating
+            Product cached = cache.asMap().compute(fresh.getId(), (id, existing) ->
+                    existing != null || evictions.get() != generation ? existing : fresh);
+            products.add(copy(cached != null ? cached : fresh));
+        }
+        return products;
+    }
+
+    /**
+     * Put the product's committed state (read at commit, so after the final flush)
+     */
+    public void putAfterCommit(Product product) {
+        afterCommit(() -> {
+            Product fresh = copy(product);
+            cache.asMap().merge(fresh.getId(), fresh, (cached, incoming) -> isNewer(cached, incoming) ? cached : incoming);
+            invalidation.ifPresent(channel -> channel.publish(fresh.getId()));
+        });
+    }
+
+    public void evictAfterCommit(Long id) {
+        afterCommit(() -> {
+            invalidate(id);
+            invalidation.ifPresent(channel -> channel.publish(id));
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+        // Loads happen outside Caffeine, so they are counted here
+        FunctionCounter.builder("cache.loads", loads, AtomicLong::get)
+                .tag("cache", NAME)
+                .description("Number of times a product was read from the database")
+                .register(registry);
+        TimeGauge.builder("cache.load.duration", loadNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .tag("cache", NAME)
+                .description("Total time spent reading products from the database")
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", NAME)
+                .description("Share of product lookups answered from the cache")
+                .register(registry);
+    }
+
+    // Runs before AFTER_COMMIT listeners (which may read the product back); at once outside a transaction
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static boolean isNewer(Product cached, Product incoming) {
+        LocalDateTime cachedAt = cached.getUpdatedAt();
+        LocalDateTime incomingAt = incoming.getUpdatedAt();
+        return cachedAt != null && incomingAt != null && cachedAt.isAfter(incomingAt);
+    }
+
+    private void invalidate(Long id) {
+        evictions.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    private static Product copy(Product product) {
+        return product.toBuilder().build();
+    }
+}
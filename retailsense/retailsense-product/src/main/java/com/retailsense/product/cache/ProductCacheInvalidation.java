@@ -0,0 +1,21 @@
+package com.retailsense.product.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries product cache invalidations between nodes (e.g. over Redis pub/sub or Postgres
+ * LISTEN/NOTIFY). Optional: without a bean of this type each node only sees its own writes,
+ * which is exact for a single node.
+ */
+public interface ProductCacheInvalidation {
+
+    /**
+     * Tell the other nodes a product changed; called after the change has committed
+     */
+    void publish(Long productId);
+
+    /**
+     * Register the local cache's eviction for changes published by other nodes
+     */
+    void subscribe(Consumer<Long> evict);
+}
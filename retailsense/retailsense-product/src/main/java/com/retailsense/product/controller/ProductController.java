@@ -1,16 +1,30 @@
 package com.retailsense.product.controller;
 
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.dto.ProductFilter;
+import com.retailsense.product.dto.ProductImportResponse;
+import com.retailsense.product.dto.ProductPage;
 import com.retailsense.product.dto.ProductRequest;
 import com.retailsense.product.model.Product;
+import com.retailsense.product.service.ProductExportService;
+import com.retailsense.product.service.ProductImportService;
 import com.retailsense.product.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.List;
 import java.util.Map;
 
@@ -22,23 +36,33 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final DataVersions dataVersions;
 
     /**
      * GET /api/products - Get all products
-     * Query params: category (optional), lowStock (optional), search (optional)
+     * Query params: category (optional), lowStock (optional), search (optional; ranked best first),
+     * limit (optional; caps search results, all matches when absent)
+     * GETs are tagged with the product data version; a matching If-None-Match gets a 304
      */
     @GetMapping
     public ResponseEntity<List<Product>> getAllProducts(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Boolean lowStock,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest
     ) {
         log.info("GET /api/products - category: {}, lowStock: {}, search: {}", category, lowStock, search);
+        if (notModified(webRequest)) {
+            return null;
+        }
 
         List<Product> products;
 
         if (search != null && !search.isEmpty()) {
-            products = productService.searchProducts(search);
+            products = productService.searchProducts(search, limit);
         } else if (category != null && !category.isEmpty()) {
             products = productService.getProductsByCategory(category);
         } else if (lowStock != null && lowStock) {
@@ -50,12 +74,50 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * GET /api/products/page - Filtered, sorted, keyset-paged listing of slim product rows
+     * Query params (all optional, combinable): category, status (OUT_OF_STOCK|LOW_STOCK|SUFFICIENT),
+     * name, minPrice, maxPrice, sort (name|price|quantity|id, default name), direction (asc|desc),
+     * cursor (nextCursor of the previous page), size (default 50)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ProductPage> getProductPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest webRequest
+    ) {
+        log.info("GET /api/products/page - category: {}, status: {}, name: {}, price: {}..{}, sort: {} {}, size: {}",
+                category, status, name, minPrice, maxPrice, sort, direction, size);
+        if (notModified(webRequest)) {
+            return null;
+        }
+
+        ProductFilter filter = ProductFilter.builder()
+                .category(category)
+                .stockStatus(parseStockStatus(status))
+                .name(name)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .build();
+        return ResponseEntity.ok(productService.getProductPage(filter, sort, direction, cursor, size));
+    }
+
     /**
      * GET /api/products/{id} - Get product by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest webRequest) {
         log.info("GET /api/products/{}", id);
+        if (notModified(webRequest)) {
+            return null;
+        }
         Product product = productService.getProductById(id);
         return ResponseEntity.ok(product);
     }
@@ -70,6 +132,41 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    /**
+     * POST /api/products/import - Bulk create/update from a streamed CSV (text/csv, header row)
+     * or NDJSON (application/x-ndjson) body; rows with an id update that product, others match
+     * on name and category. Invalid rows are reported by line and skipped.
+     * Query params: format (csv|ndjson, optional; defaults from Content-Type)
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request
+    ) throws IOException {
+        String importFormat = format != null ? format : ProductImportService.formatOf(request.getContentType());
+        log.info("POST /api/products/import - format: {}", importFormat);
+        ProductImportResponse response = productImportService.importProducts(request.getInputStream(), importFormat);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/products/export - Stream every product as NDJSON or CSV in constant memory
+     * (the columns POST /api/products/import reads back)
+     * Query params: format (ndjson|csv)
+     */
+    @GetMapping("/export")
+    public void exportProducts(
+            @RequestParam(defaultValue = ProductExportService.FORMAT_NDJSON) String format,
+            HttpServletResponse response
+    ) throws IOException {
+        log.info("GET /api/products/export - format: {}", format);
+
+        response.setContentType(ProductExportService.contentType(format));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + format + "\"");
+        productExportService.exportProducts(format, response.getOutputStream());
+    }
+
     /**
      * PUT /api/products/{id} - Update product
      */
@@ -102,8 +199,11 @@ public class ProductController {
      * GET /api/products/categories - Get all categories
      */
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
+    public ResponseEntity<List<String>> getAllCategories(WebRequest webRequest) {
         log.info("GET /api/products/categories");
+        if (notModified(webRequest)) {
+            return null;
+        }
         List<String> categories = productService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
@@ -112,11 +212,14 @@ public class ProductController {
      * GET /api/products/stats - Get product statistics
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getProductStats() {
+    public ResponseEntity<Map<String, Object>> getProductStats(WebRequest webRequest) {
         log.info("GET /api/products/stats");
+        if (notModified(webRequest)) {
+            return null;
+        }
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalProducts", productService.getAllProducts().size());
+        stats.put("totalProducts", productService.getProductCount());
         stats.put("lowStockCount", productService.getLowStockCount());
         stats.put("categories", productService.getAllCategories().size());
 
@@ -129,12 +232,15 @@ public class ProductController {
     @PatchMapping("/{id}/stock")
     public ResponseEntity<Product> updateStock(
             @PathVariable Long id,
-            @RequestBody Map<String, Integer> request
+            @RequestBody Map<String, Object> request
     ) {
         log.info("PATCH /api/products/{}/stock", id);
 
-        Integer quantity = request.get("quantity");
-        String action = request.getOrDefault("action", 0).toString();
+        if (!(request.get("quantity") instanceof Number requestedQuantity)) {
+            throw new IllegalArgumentException("Quantity is required");
+        }
+        Integer quantity = requestedQuantity.intValue();
+        String action = String.valueOf(request.getOrDefault("action", ""));
 
         if ("increase".equals(action)) {
             productService.increaseStock(id, quantity);
@@ -157,6 +263,24 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    private static Product.StockStatus parseStockStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return Product.StockStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Status must be one of OUT_OF_STOCK, LOW_STOCK, SUFFICIENT");
+        }
+    }
+
+    /**
+     * Sets the ETag; true when the client's copy is current and a 304 has been prepared
+     */
+    private boolean notModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(dataVersions.tag(DataVersions.Domain.PRODUCTS));
+    }
+
     /**
      * Exception handler for this controller
      */
@@ -0,0 +1,17 @@
+package com.retailsense.product.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Product columns for export (projection, so streamed rows never enter the persistence context).
+ * Same columns the import accepts.
+ */
+public interface ProductExportRow {
+    Long getId();
+    String getName();
+    String getCategory();
+    BigDecimal getPurchasePrice();
+    BigDecimal getSellingPrice();
+    Integer getQuantity();
+    Integer getMinimumThreshold();
+}
@@ -0,0 +1,25 @@
+package com.retailsense.product.dto;
+
+import com.retailsense.product.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Product listing filters; null fields do not filter. Price is the selling price, name a
+ * case-insensitive substring.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFilter {
+    private String category;
+    private Product.StockStatus stockStatus;
+    private String name;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
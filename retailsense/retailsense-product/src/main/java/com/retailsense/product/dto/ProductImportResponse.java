@@ -0,0 +1,30 @@
+package com.retailsense.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductImportResponse {
+    private Long totalRows;
+    private Long inserted;
+    private Long updated;
+    private Long failed;
+    private List<RowError> errors;
+    private Boolean errorsTruncated;  // true when more rows failed than are listed
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowError {
+        private Long line;
+        private String error;
+    }
+}
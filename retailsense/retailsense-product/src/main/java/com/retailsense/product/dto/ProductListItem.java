@@ -0,0 +1,25 @@
+package com.retailsense.product.dto;
+
+import com.retailsense.product.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Slim product row for listings (selling price as price).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductListItem {
+    private Long id;
+    private String name;
+    private String category;
+    private BigDecimal price;
+    private Integer quantity;
+    private Product.StockStatus status;
+}
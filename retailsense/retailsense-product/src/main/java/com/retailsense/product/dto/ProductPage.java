@@ -0,0 +1,18 @@
+package com.retailsense.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductPage {
+    private List<ProductListItem> products;
+    private Integer size;
+    private String nextCursor;  // null when there are no more pages
+}
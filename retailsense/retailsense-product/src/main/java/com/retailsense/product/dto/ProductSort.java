@@ -0,0 +1,34 @@
+package com.retailsense.product.dto;
+
+import com.retailsense.common.exception.ValidationException;
+
+import java.util.Locale;
+
+/**
+ * Sort keys for the product listing, each paired with the entity attribute it orders by.
+ * Ties are broken by id.
+ */
+public enum ProductSort {
+    NAME("name"),
+    PRICE("sellingPrice"),
+    QUANTITY("quantity"),
+    ID("id");
+
+    private final String attribute;
+
+    ProductSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public static ProductSort from(String sort) {
+        try {
+            return valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Sort must be one of name, price, quantity, id");
+        }
+    }
+}
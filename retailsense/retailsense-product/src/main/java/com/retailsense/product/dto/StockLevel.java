@@ -0,0 +1,10 @@
+package com.retailsense.product.dto;
+
+/**
+ * Stock columns only, for keeping the low-stock index current
+ */
+public interface StockLevel {
+    Long getId();
+    Integer getQuantity();
+    Integer getMinimumThreshold();
+}
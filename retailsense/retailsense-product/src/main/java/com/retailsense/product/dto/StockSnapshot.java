@@ -0,0 +1,17 @@
+package com.retailsense.product.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Product state returned by a guarded stock update (UPDATE ... RETURNING).
+ * Carries everything the sale path needs so it never has to re-read the product.
+ */
+public interface StockSnapshot {
+    Long getId();
+    String getName();
+    String getCategory();
+    BigDecimal getPurchasePrice();
+    BigDecimal getSellingPrice();
+    Integer getQuantity();
+    Integer getMinimumThreshold();
+}
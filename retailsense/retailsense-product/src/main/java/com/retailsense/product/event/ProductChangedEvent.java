@@ -0,0 +1,20 @@
+package com.retailsense.product.event;
+
+import java.util.List;
+
+/**
+ * Published by ProductService when a product is created, edited or deleted (stock-only
+ * changes are not included), and by the bulk import once per batch for all its products.
+ */
+public record ProductChangedEvent(List<Long> productIds, ChangeType changeType) {
+
+    public ProductChangedEvent(Long productId, ChangeType changeType) {
+        this(List.of(productId), changeType);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,9 @@
+package com.retailsense.product.event;
+
+/**
+ * Published by LowStockIndex, after commit, when a product's stock falls to its minimum
+ * threshold or below (lowStock true) or is restocked above it (lowStock false).
+ * Published outside any transaction, so listen with @EventListener.
+ */
+public record StockThresholdCrossedEvent(Long productId, int quantity, Integer minimumThreshold, boolean lowStock) {
+}
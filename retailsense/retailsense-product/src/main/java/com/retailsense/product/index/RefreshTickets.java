@@ -0,0 +1,49 @@
+package com.retailsense.product.index;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Ordering for the in-memory product indexes, whose updates run after commit and may finish
+ * out of order. An update takes a ticket before it reads (or while it holds the row lock) and
+ * only overwrites a product last written by a lower ticket. Tickets stay outstanding until
+ * finished, whether applied or abandoned; whatever an index keeps to reject stale writes can
+ * be dropped once it is below the oldest outstanding ticket finish() returns, since no lower ticket can still arrive.
+ */
+public final class RefreshTickets {
+
+    /**
+     * Ticket of the startup build, lower than every issued ticket
+     */
+    public static final long BUILD = 0;
+
+    // Guarded by this
+    private final TreeSet<Long> outstanding = new TreeSet<>();
+    private long lastTicket;
+
+    public synchronized long next() {
+        outstanding.add(++lastTicket);
+        return lastTicket;
+    }
+
+    /**
+     * Hold the BUILD ticket while the startup build runs
+     */
+    public synchronized void startBuild() {
+        outstanding.add(BUILD);
+    }
+
+    public long finish(long ticket) {
+        return finish(List.of(ticket));
+    }
+
+    /**
+     * Mark the tickets applied or abandoned and return the oldest one still outstanding
+     * (Long.MAX_VALUE if none)
+     */
+    public synchronized long finish(Collection<Long> tickets) {
+        outstanding.removeAll(tickets);
+        return outstanding.isEmpty() ? Long.MAX_VALUE : outstanding.first();
+    }
+}
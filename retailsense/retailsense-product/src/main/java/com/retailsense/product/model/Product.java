@@ -1,5 +1,6 @@
 package com.retailsense.product.model;
 
+import com.retailsense.common.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,11 +17,12 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Product {
 
+    // Pooled sequence products_seq (increment 50), see BaseEntity
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(nullable = false)
@@ -52,20 +54,25 @@ public class Product {
     // Computed field - profit margin percentage
     @Transient
     public BigDecimal getProfitMargin() {
-        if (purchasePrice.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
-        return sellingPrice.subtract(purchasePrice)
-                .divide(purchasePrice, 2, BigDecimal.ROUND_HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        return profitMargin(purchasePrice, sellingPrice);
+    }
+
+    // Profit margin percentage for the given prices (shared with aggregated projections)
+    public static BigDecimal profitMargin(BigDecimal purchasePrice, BigDecimal sellingPrice) {
+        return Money.of(purchasePrice).marginPercent(Money.of(sellingPrice));
     }
 
     // Helper method to check stock status
     @Transient
     public StockStatus getStockStatus() {
+        return stockStatus(quantity, minimumThreshold);
+    }
+
+    // Stock status for the given levels (shared with listing projections); no threshold never counts as low
+    public static StockStatus stockStatus(int quantity, Integer minimumThreshold) {
         if (quantity == 0) {
             return StockStatus.OUT_OF_STOCK;
-        } else if (quantity <= minimumThreshold) {
+        } else if (minimumThreshold != null && quantity <= minimumThreshold) {
             return StockStatus.LOW_STOCK;
         } else {
             return StockStatus.SUFFICIENT;
@@ -0,0 +1,21 @@
+package com.retailsense.product.repository;
+
+import com.retailsense.product.dto.ProductListItem;
+import com.retailsense.product.dto.ProductSort;
+import com.retailsense.product.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Filtered product listing as slim rows (implemented with the Criteria API).
+ */
+public interface ProductListingRepository {
+
+    /**
+     * Up to limit rows matching filter, ordered by sort then id, strictly after the
+     * (afterValue, afterId) keyset position when afterId is not null
+     */
+    List<ProductListItem> findListPage(Specification<Product> filter, ProductSort sort, boolean descending,
+                                       Comparable<?> afterValue, Long afterId, int limit);
+}
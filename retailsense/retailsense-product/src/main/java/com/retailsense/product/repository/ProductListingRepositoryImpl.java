@@ -0,0 +1,87 @@
+package com.retailsense.product.repository;
+
+import com.retailsense.product.dto.ProductListItem;
+import com.retailsense.product.dto.ProductSort;
+import com.retailsense.product.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductListItem> findListPage(Specification<Product> filter, ProductSort sort, boolean descending,
+                                              Comparable<?> afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+
+        // Only the listed columns are selected, never the full entity
+        query.multiselect(
+                product.get("id"),
+                product.get("name"),
+                product.get("category"),
+                product.get("sellingPrice"),
+                product.get("quantity"),
+                product.get("minimumThreshold"));
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate matching = filter.toPredicate(product, query, cb);
+        if (matching != null) {
+            predicates.add(matching);
+        }
+        Path<Long> id = product.get("id");
+        Path<Comparable<Object>> key = product.get(sort.getAttribute());
+        if (afterId != null) {
+            predicates.add(sort == ProductSort.ID
+                    ? after(cb, id, afterId, descending)
+                    : cb.or(after(cb, key, afterValue, descending),
+                            cb.and(cb.equal(key, afterValue), after(cb, id, afterId, descending))));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+
+        query.orderBy(descending
+                ? List.of(cb.desc(key), cb.desc(id))
+                : List.of(cb.asc(key), cb.asc(id)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(ProductListingRepositoryImpl::toItem)
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<?> path,
+                                                                     Object value, boolean descending) {
+        Expression<T> expression = (Expression<T>) path;
+        return descending ? cb.lessThan(expression, (T) value) : cb.greaterThan(expression, (T) value);
+    }
+
+    private static ProductListItem toItem(Tuple row) {
+        Integer quantity = row.get(4, Integer.class);
+        return ProductListItem.builder()
+                .id(row.get(0, Long.class))
+                .name(row.get(1, String.class))
+                .category(row.get(2, String.class))
+                .price(row.get(3, BigDecimal.class))
+                .quantity(quantity)
+                .status(Product.stockStatus(quantity, row.get(5, Integer.class)))
+                .build();
+    }
+}
@@ -1,15 +1,25 @@
 package com.retailsense.product.repository;
 
+import com.retailsense.product.dto.ProductExportRow;
+import com.retailsense.product.dto.StockLevel;
+import com.retailsense.product.dto.StockSnapshot;
 import com.retailsense.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductListingRepository {
 
     // Find products by category
     List<Product> findByCategory(String category);
@@ -37,4 +47,42 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Count products by stock status
     @Query("SELECT COUNT(p) FROM Product p WHERE p.quantity <= p.minimumThreshold")
     Long countLowStockProducts();
+
+    // Stock levels for the low-stock index
+    @Query("SELECT p.id AS id, p.quantity AS quantity, p.minimumThreshold AS minimumThreshold FROM Product p")
+    List<StockLevel> findAllStockLevels();
+
+    // Share-locks the rows, so writers wait until the caller's transaction ends
+    @Query(value = "SELECT id, quantity, minimum_threshold AS \"minimumThreshold\" " +
+            "FROM products WHERE id IN (:ids) FOR SHARE",
+            nativeQuery = true)
+    List<StockLevel> findStockLevelsForShare(@Param("ids") Collection<Long> ids);
+
+    // Forward-only cursor for the export, in id order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.id AS id, p.name AS name, p.category AS category, p.purchasePrice AS purchasePrice, " +
+            "p.sellingPrice AS sellingPrice, p.quantity AS quantity, p.minimumThreshold AS minimumThreshold " +
+            "FROM Product p ORDER BY p.id")
+    Stream<ProductExportRow> streamForExport();
+
+    // Atomically decrement stock only if enough is available; empty when the guard fails
+    @Transactional
+    @Query(value = "UPDATE products SET quantity = quantity - :quantity, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = :id AND quantity >= :quantity " +
+            "RETURNING id, name, category, purchase_price AS \"purchasePrice\", " +
+            "selling_price AS \"sellingPrice\", quantity, minimum_threshold AS \"minimumThreshold\"",
+            nativeQuery = true)
+    Optional<StockSnapshot> decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    // Atomically add stock; empty when the product does not exist
+    @Transactional
+    @Query(value = "UPDATE products SET quantity = quantity + :quantity, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = :id " +
+            "RETURNING id, name, category, purchase_price AS \"purchasePrice\", " +
+            "selling_price AS \"sellingPrice\", quantity, minimum_threshold AS \"minimumThreshold\"",
+            nativeQuery = true)
+    Optional<StockSnapshot> incrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
 }
\ No newline at end of file
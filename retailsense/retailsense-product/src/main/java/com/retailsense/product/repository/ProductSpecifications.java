@@ -0,0 +1,67 @@
+package com.retailsense.product.repository;
+
+import com.retailsense.product.dto.ProductFilter;
+import com.retailsense.product.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Composable product filters for the listing; ProductFilter fields that are null are skipped.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilter filter) {
+        Specification<Product> spec = Specification.where(null);
+        if (filter.getCategory() != null && !filter.getCategory().isBlank()) {
+            spec = spec.and(inCategory(filter.getCategory()));
+        }
+        if (filter.getStockStatus() != null) {
+            spec = spec.and(hasStockStatus(filter.getStockStatus()));
+        }
+        if (filter.getName() != null && !filter.getName().isBlank()) {
+            spec = spec.and(nameContains(filter.getName()));
+        }
+        if (filter.getMinPrice() != null) {
+            spec = spec.and(priceAtLeast(filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            spec = spec.and(priceAtMost(filter.getMaxPrice()));
+        }
+        return spec;
+    }
+
+    public static Specification<Product> inCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    // Same rules as Product.stockStatus
+    public static Specification<Product> hasStockStatus(Product.StockStatus status) {
+        return (root, query, cb) -> switch (status) {
+            case OUT_OF_STOCK -> cb.equal(root.get("quantity"), 0);
+            case LOW_STOCK -> cb.and(
+                    cb.greaterThan(root.get("quantity"), 0),
+                    cb.lessThanOrEqualTo(root.get("quantity"), root.get("minimumThreshold")));
+            case SUFFICIENT -> cb.and(
+                    cb.greaterThan(root.get("quantity"), 0),
+                    cb.or(cb.isNull(root.get("minimumThreshold")),
+                            cb.greaterThan(root.get("quantity"), root.get("minimumThreshold"))));
+        };
+    }
+
+    public static Specification<Product> nameContains(String name) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), "%" + name.toLowerCase(Locale.ROOT) + "%");
+    }
+
+    public static Specification<Product> priceAtLeast(BigDecimal price) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("sellingPrice"), price);
+    }
+
+    public static Specification<Product> priceAtMost(BigDecimal price) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("sellingPrice"), price);
+    }
+}
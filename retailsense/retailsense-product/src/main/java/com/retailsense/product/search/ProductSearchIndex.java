@@ -0,0 +1,311 @@
+package com.retailsense.product.search;
+
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.event.ProductChangedEvent;
+import com.retailsense.product.index.RefreshTickets;
+import com.retailsense.product.model.Product;
+import com.retailsense.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over product name and category for the search box.
+ * A term of three or more characters is looked up by intersecting the posting lists of its
+ * trigrams, so only products sharing all of them are checked for the substring; shorter
+ * terms check every product (the catalog is small enough that this stays in microseconds).
+ * Matching is case-insensitive substring on name or category, ranked: exact name, name
+ * prefix, word prefix in the name, anywhere in the name, category prefix, anywhere in the
+ * category; then shorter names first.
+ * Built at startup and kept current from committed product changes; isReady() is false
+ * until the first build finishes and callers fall back to SQL.
+ *
+ * Refreshes run after commit and may finish out of order, so they are ordered by
+ * RefreshTickets; a product's last ticket is kept only while an older refresh is still
+ * running.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private record Document(long id, String name, String category) {
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Long> appliedTickets = new HashMap<>();
+
+    private final RefreshTickets tickets = new RefreshTickets();
+
+    // Products changed while the initial build runs, re-read once it is done
+    private volatile boolean ready;
+    private final Set<Long> pending = new HashSet<>();
+
+    public ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Refreshes run in after-commit callbacks, where the finished transaction is still bound
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        List<Product> products = readOnlyTransaction.execute(status -> productRepository.findAll());
+
+        int trigrams;
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::put);
+            trigrams = postings.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Set<Long> changed;
+        synchronized (pending) {
+            ready = true;
+            changed = Set.copyOf(pending);
+            pending.clear();
+        }
+        refresh(changed);
+        log.info("Product search index built in {} ms ({} products, {} trigrams)",
+                System.currentTimeMillis() - started, products.size(), trigrams);
+    }
+
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!ready) {
+            synchronized (pending) {
+                if (!ready) {
+                    pending.addAll(event.productIds());
+                    return;
+                }
+            }
+        }
+        if (event.changeType() == ProductChangedEvent.ChangeType.DELETED) {
+            remove(event.productIds());
+        } else {
+            refresh(event.productIds());
+        }
+    }
+
+    /**
+     * Ids of the best matches for the term, best first
+     */
+    public List<Long> search(String term, int limit) {
+        String query = normalize(term);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        List<Document> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Document document : candidates(query)) {
+                if (document.name().contains(query) || document.category().contains(query)) {
+                    matches.add(document);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt((Document document) -> rank(document, query))
+                .thenComparingInt(document -> document.name().length())
+                .thenComparing(Document::name)
+                .thenComparingLong(Document::id));
+        return matches.stream()
+                .limit(limit)
+                .map(Document::id)
+                .toList();
+    }
+
+    // Products containing every trigram of the query (all products for short queries)
+    private Iterable<Document> candidates(String query) {
+        if (query.length() < 3) {
+            return documents.values();
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (long trigram : trigrams(query)) {
+            Set<Long> posting = postings.get(trigram);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Document> result = new ArrayList<>();
+        outer:
+        for (Long id : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) {
+                    continue outer;
+                }
+            }
+            result.add(documents.get(id));
+        }
+        return result;
+    }
+
+    private static int rank(Document document, String query) {
+        String name = document.name();
+        if (name.equals(query)) {
+            return 0;
+        }
+        if (name.startsWith(query)) {
+            return 1;
+        }
+        int at = name.indexOf(query);
+        if (at > 0) {
+            // Any occurrence at the start of a word
+            for (; at >= 0; at = name.indexOf(query, at + 1)) {
+                if (!Character.isLetterOrDigit(name.charAt(at - 1))) {
+                    return 2;
+                }
+            }
+            return 3;
+        }
+        return document.category().startsWith(query) ? 4 : 5;
+    }
+
+    // Re-read the products in one query; ids no longer found are dropped
+    private void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        long ticket = tickets.next();
+        try {
+            Map<Long, Product> products = new HashMap<>();
+            readOnlyTransaction.execute(status -> productRepository.findAllById(productIds))
+                    .forEach(product -> products.put(product.getId(), product));
+            lock.writeLock().lock();
+            try {
+                for (Long productId : productIds) {
+                    if (claim(productId, ticket)) {
+                        Product product = products.get(productId);
+                        if (product != null) {
+                            put(product);
+                        } else {
+                            unindex(productId);
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            finishRefresh(ticket);
+        }
+    }
+
+    private void remove(Collection<Long> productIds) {
+        long ticket = tickets.next();
+        try {
+            lock.writeLock().lock();
+            try {
+                for (Long productId : productIds) {
+                    if (claim(productId, ticket)) {
+                        unindex(productId);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            finishRefresh(ticket);
+        }
+    }
+
+    // Tickets below every running refresh can no longer be undercut, so they are dropped
+    private void finishRefresh(long ticket) {
+        long oldest = tickets.finish(ticket);
+        lock.writeLock().lock();
+        try {
+            appliedTickets.values().removeIf(applied -> applied < oldest);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock; false if a newer refresh already wrote the product
+    private boolean claim(Long productId, long ticket) {
+        Long applied = appliedTickets.get(productId);
+        if (applied != null && applied > ticket) {
+            return false;
+        }
+        appliedTickets.put(productId, ticket);
+        return true;
+    }
+
+    // Callers hold the write lock
+    private void put(Product product) {
+        unindex(product.getId());
+        Document document = new Document(product.getId(), normalize(product.getName()), normalize(product.getCategory()));
+        documents.put(document.id(), document);
+        for (String text : List.of(document.name(), document.category())) {
+            for (long trigram : trigrams(text)) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(document.id());
+            }
+        }
+    }
+
+    // Callers hold the write lock
+    private void unindex(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String text : List.of(document.name(), document.category())) {
+            for (long trigram : trigrams(text)) {
+                Set<Long> posting = postings.get(trigram);
+                if (posting != null && posting.remove(productId) && posting.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    // Three 16-bit chars packed into one key
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,130 @@
+package com.retailsense.product.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.product.dto.ProductExportRow;
+import com.retailsense.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the product catalogue straight from a database cursor to the response, in the
+ * columns ProductImportService reads, so an export can be edited and imported back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ProductExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    static final String CSV_HEADER = "id,name,category,purchasePrice,sellingPrice,quantity,minimumThreshold";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    public static String contentType(String format) {
+        return switch (format) {
+            case FORMAT_NDJSON -> "application/x-ndjson";
+            case FORMAT_CSV -> "text/csv";
+            default -> throw new ValidationException("Unsupported format: " + format + " (use ndjson or csv)");
+        };
+    }
+
+    /**
+     * Write every product, in id order, to the output stream
+     * @return number of rows written
+     */
+    public long exportProducts(String format, OutputStream out) throws IOException {
+        contentType(format); // validate before touching the database
+        log.info("Exporting products as {}", format);
+
+        long rows;
+        try (Stream<ProductExportRow> products = productRepository.streamForExport()) {
+            rows = FORMAT_CSV.equals(format)
+                    ? writeCsv(products.iterator(), out)
+                    : writeNdjson(products.iterator(), out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} products", rows);
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<ProductExportRow> products, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            while (products.hasNext()) {
+                ProductExportRow product = products.next();
+                json.writeStartObject();
+                json.writeNumberField("id", product.getId());
+                json.writeStringField("name", product.getName());
+                json.writeStringField("category", product.getCategory());
+                json.writeNumberField("purchasePrice", product.getPurchasePrice());
+                json.writeNumberField("sellingPrice", product.getSellingPrice());
+                json.writeNumberField("quantity", product.getQuantity());
+                if (product.getMinimumThreshold() != null) {
+                    json.writeNumberField("minimumThreshold", product.getMinimumThreshold());
+                } else {
+                    json.writeNullField("minimumThreshold");
+                }
+                json.writeEndObject();
+                rows++;
+            }
+            if (rows > 0) {
+                json.writeRaw('\n');
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<ProductExportRow> products, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(CSV_HEADER);
+        csv.write('\n');
+        while (products.hasNext()) {
+            ProductExportRow product = products.next();
+            csv.write(product.getId() + "," + csvField(product.getName()) + "," + csvField(product.getCategory()) + ","
+                    + plain(product.getPurchasePrice()) + "," + plain(product.getSellingPrice()) + ","
+                    + product.getQuantity() + "," + (product.getMinimumThreshold() != null ? product.getMinimumThreshold() : ""));
+            csv.write('\n');
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : "";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,531 @@
+package com.retailsense.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.cache.ProductCache;
+import com.retailsense.product.dto.ProductImportResponse;
+import com.retailsense.product.dto.ProductRequest;
+import com.retailsense.product.event.ProductChangedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product upload from a streamed CSV or NDJSON body. Rows are parsed one at a time,
+ * validated with the same rules as POST /api/products, and written with plain JDBC batch
+ * inserts and updates, one transaction per batch, so memory use does not grow with the
+ * upload and a committed batch stays committed. A row that fails parsing or validation is
+ * reported (by line number) and skipped; the rest of the upload carries on.
+ *
+ * A row with an id updates that product. Without one it updates the product with the same
+ * name and category, or inserts a new one. New ids come from products_seq in blocks of 50,
+ * the same pooled-lo allocation Hibernate uses, so the two never hand out the same id.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // INCREMENT BY of products_seq (V2 migration)
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(id, name, category, purchase_price, selling_price, quantity, minimum_threshold, created_at, updated_at) "
+            + "VALUES (:id, :name, :category, :purchasePrice, :sellingPrice, :quantity, :minimumThreshold, now(), now())";
+    private static final String UPDATE_SQL = "UPDATE products SET name = :name, category = :category, "
+            + "purchase_price = :purchasePrice, selling_price = :sellingPrice, quantity = :quantity, "
+            + "minimum_threshold = :minimumThreshold, updated_at = now() WHERE id = :id";
+
+    record ImportRow(long line, Long id, ProductRequest request) {
+    }
+
+    private record BatchResult(List<Long> inserted, List<Long> updated, Map<Long, String> errors) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersions dataVersions;
+    private final int batchSize;
+
+    public ProductImportService(NamedParameterJdbcTemplate jdbc,
+                                PlatformTransactionManager transactionManager,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductCache productCache,
+                                ApplicationEventPublisher eventPublisher,
+                                DataVersions dataVersions,
+                                @Value("${retailsense.product.import.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
+        this.dataVersions = dataVersions;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Upload format from the request's Content-Type, when no format is given explicitly
+     */
+    public static String formatOf(String contentType) {
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        if (type.startsWith("text/csv")) {
+            return ProductExportService.FORMAT_CSV;
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+            return ProductExportService.FORMAT_NDJSON;
+        }
+        throw new ValidationException("Unsupported content type: " + contentType
+                + " (use text/csv or application/x-ndjson, or pass format)");
+    }
+
+    public ProductImportResponse importProducts(InputStream in, String format) throws IOException {
+        ProductExportService.contentType(format); // validate before reading the body
+        log.info("Importing products as {} in batches of {}", format, batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader rows = ProductExportService.FORMAT_CSV.equals(format) ? new CsvRowReader(reader) : new NdjsonRowReader(reader, objectMapper);
+        Progress progress = new Progress();
+
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        ImportRow row;
+        while ((row = rows.next(progress)) != null) {
+            progress.total++;
+            String error = validate(row);
+            if (error != null) {
+                progress.fail(row.line(), error);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                write(batch, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, progress);
+        }
+
+        log.info("Product import done: {} rows, {} inserted, {} updated, {} failed",
+                progress.total, progress.inserted, progress.updated, progress.failed);
+        return progress.toResponse();
+    }
+
+    private String validate(ImportRow row) {
+        ProductRequest request = row.request();
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; "));
+        }
+        if (!request.isSellingPriceValid()) {
+            return "Selling price must be greater than or equal to purchase price";
+        }
+        // Column limits, so one row cannot fail the whole batch in the database
+        if (request.getCategory().length() > 255) {
+            return "Category must be at most 255 characters";
+        }
+        if (!fitsPriceColumn(request.getPurchasePrice()) || !fitsPriceColumn(request.getSellingPrice())) {
+            return "Prices must be below 100000000 with at most 2 decimals";
+        }
+        if (row.id() != null && row.id() < 1) {
+            return "Id must be positive";
+        }
+        return null;
+    }
+
+    // numeric(10, 2)
+    private static boolean fitsPriceColumn(BigDecimal price) {
+        return price.scale() <= 2 && price.precision() - price.scale() <= 8;
+    }
+
+    private void write(List<ImportRow> batch, Progress progress) {
+        BatchResult result;
+        try {
+            result = transaction.execute(status -> upsert(batch));
+        } catch (DataAccessException e) {
+            String message = "Not saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Product import batch at line {} failed: {}", batch.get(0).line(), message);
+            batch.forEach(row -> progress.fail(row.line(), message));
+            return;
+        }
+        progress.inserted += result.inserted().size();
+        progress.updated += result.updated().size();
+        result.errors().forEach(progress::fail);
+    }
+
+    private BatchResult upsert(List<ImportRow> batch) {
+        Map<String, Long> existing = findByNameAndCategory(batch);
+
+        // Resolve every row to an insert or an update; a name and category repeated in the batch updates the first
+        List<ImportRow> inserts = new ArrayList<>();
+        List<Long> insertIds = new ArrayList<>();
+        List<ImportRow> updates = new ArrayList<>();
+        List<Long> updateIds = new ArrayList<>();
+        List<Long> newIds = allocateIds(batch.stream().filter(row -> row.id() == null).count());
+        int nextNewId = 0;
+        for (ImportRow row : batch) {
+            Long id = row.id() != null ? row.id() : existing.get(key(row.request()));
+            if (id != null) {
+                updates.add(row);
+                updateIds.add(id);
+            } else {
+                id = newIds.get(nextNewId++);
+                existing.put(key(row.request()), id);
+                inserts.add(row);
+                insertIds.add(id);
+            }
+        }
+
+        jdbc.batchUpdate(INSERT_SQL, parameters(inserts, insertIds));
+        int[] updateCounts = jdbc.batchUpdate(UPDATE_SQL, parameters(updates, updateIds));
+
+        List<Long> updated = new ArrayList<>();
+        Map<Long, String> errors = new HashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            if (updateCounts[i] == 0) {
+                errors.put(updates.get(i).line(), "Product not found with id: " + updateIds.get(i));
+            } else {
+                updated.add(updateIds.get(i));
+            }
+        }
+
+        // Same after-commit notifications as ProductService, one event per kind for the whole batch
+        updated.forEach(productCache::evictAfterCommit);
+        if (!insertIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(insertIds, ProductChangedEvent.ChangeType.CREATED));
+        }
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(updated, ProductChangedEvent.ChangeType.UPDATED));
+        }
+        if (!insertIds.isEmpty() || !updated.isEmpty()) {
+            dataVersions.bump(DataVersions.Domain.PRODUCTS);
+        }
+        return new BatchResult(insertIds, updated, errors);
+    }
+
+    // Lowest id per name and category, for the rows in the batch that have no id
+    private Map<String, Long> findByNameAndCategory(List<ImportRow> batch) {
+        Set<String> names = batch.stream()
+                .filter(row -> row.id() == null)
+                .map(row -> row.request().getName())
+                .collect(Collectors.toSet());
+        Map<String, Long> ids = new HashMap<>();
+        if (names.isEmpty()) {
+            return ids;
+        }
+        jdbc.query("SELECT id, name, category FROM products WHERE name IN (:names) ORDER BY id",
+                Map.of("names", names),
+                rs -> {
+                    ids.putIfAbsent(key(rs.getString("name"), rs.getString("category")), rs.getLong("id"));
+                });
+        return ids;
+    }
+
+    private List<Long> allocateIds(long count) {
+        List<Long> ids = new ArrayList<>();
+        while (ids.size() < count) {
+            Long low = jdbc.getJdbcTemplate().queryForObject("SELECT nextval('products_seq')", Long.class);
+            for (int i = 0; i < ID_BLOCK_SIZE && ids.size() < count; i++) {
+                ids.add(low + i);
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, ?>[] parameters(List<ImportRow> rows, List<Long> ids) {
+        @SuppressWarnings("unchecked")
+        Map<String, ?>[] parameters = new Map[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ProductRequest request = rows.get(i).request();
+            Map<String, Object> values = new HashMap<>();
+            values.put("id", ids.get(i));
+            values.put("name", request.getName());
+            values.put("category", request.getCategory());
+            values.put("purchasePrice", request.getPurchasePrice());
+            values.put("sellingPrice", request.getSellingPrice());
+            values.put("quantity", request.getQuantity());
+            values.put("minimumThreshold", request.getMinimumThreshold());
+            parameters[i] = values;
+        }
+        return parameters;
+    }
+
+    private static String key(ProductRequest request) {
+        return key(request.getName(), request.getCategory());
+    }
+
+    private static String key(String name, String category) {
+        return name + '\u0000' + category;
+    }
+
+    static final class Progress {
+
+        private long total;
+        private long inserted;
+        private long updated;
+        private long failed;
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+
+        void fail(long line, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportResponse.RowError(line, error));
+            }
+        }
+
+        ProductImportResponse toResponse() {
+            errors.sort(Comparator.comparing(ProductImportResponse.RowError::getLine));
+            return ProductImportResponse.builder()
+                    .totalRows(total)
+                    .inserted(inserted)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+
+    interface RowReader {
+
+        // Next parsable row, or null at the end of the input; unparsable rows are reported and skipped
+        ImportRow next(Progress progress) throws IOException;
+    }
+
+    /**
+     * One JSON object per line; blank lines are skipped
+     */
+    static final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        NdjsonRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportRow next(Progress progress) throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(text);
+                    if (!node.isObject()) {
+                        throw new IllegalArgumentException("Expected a JSON object");
+                    }
+                    JsonNode id = node.path("id");
+                    if (!id.isNull() && !id.isMissingNode() && !id.canConvertToExactIntegral()) {
+                        throw new IllegalArgumentException("Invalid id: " + id);
+                    }
+                    return new ImportRow(line, id.isIntegralNumber() ? id.asLong() : null,
+                            objectMapper.treeToValue(node, ProductRequest.class));
+                } catch (JsonProcessingException e) {
+                    progress.total++;
+                    progress.fail(line, "Invalid JSON: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    progress.total++;
+                    progress.fail(line, e.getMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns (any order; id and minimumThreshold
+     * optional). Quoted fields may contain commas, quotes and line breaks; empty cells are null.
+     */
+    static final class CsvRowReader implements RowReader {
+
+        private static final List<String> REQUIRED = List.of("name", "category", "purchasePrice", "sellingPrice", "quantity");
+
+        private final BufferedReader reader;
+        private long line = 1;
+        private long recordLine;
+        private boolean unterminated;
+        private Map<String, Integer> columns;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next(Progress progress) throws IOException {
+            if (columns == null) {
+                readHeader();
+            }
+            List<String> fields;
+            while ((fields = readRecord()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    if (unterminated) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (fields.size() != columns.size()) {
+                        throw new IllegalArgumentException(
+                                "Expected " + columns.size() + " columns but found " + fields.size());
+                    }
+                    ProductRequest request = new ProductRequest();
+                    request.setName(field(fields, "name"));
+                    request.setCategory(field(fields, "category"));
+                    request.setPurchasePrice(decimal(fields, "purchasePrice"));
+                    request.setSellingPrice(decimal(fields, "sellingPrice"));
+                    request.setQuantity(integer(fields, "quantity"));
+                    if (columns.containsKey("minimumThreshold")) {
+                        request.setMinimumThreshold(integer(fields, "minimumThreshold"));
+                    }
+                    return new ImportRow(recordLine, id(fields), request);
+                } catch (IllegalArgumentException e) {
+                    progress.total++;
+                    progress.fail(recordLine, e.getMessage());
+                }
+            }
+            return null;
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new ValidationException("CSV upload is empty; expected a header row");
+            }
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).strip();
+                // Tolerate a byte order mark from spreadsheet exports
+                columns.put(i == 0 && name.startsWith("\uFEFF") ? name.substring(1) : name, i);
+            }
+            List<String> missing = REQUIRED.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new ValidationException("CSV header is missing columns: " + String.join(", ", missing));
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null) {
+                return null;
+            }
+            String value = fields.get(index).strip();
+            return value.isEmpty() ? null : value;
+        }
+
+        private Long id(List<String> fields) {
+            String value = field(fields, "id");
+            try {
+                return value != null ? Long.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id: " + value);
+            }
+        }
+
+        private BigDecimal decimal(List<String> fields, String column) {
+            String value = field(fields, column);
+            try {
+                return value != null ? new BigDecimal(value) : null;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in " + column + ": " + value);
+            }
+        }
+
+        private Integer integer(List<String> fields, String column) {
+            String value = field(fields, column);
+            try {
+                return value != null ? Integer.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid whole number in " + column + ": " + value);
+            }
+        }
+
+        // Next record, or null at the end of the input
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStarted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        unterminated = true;
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    if (c == '"') {
+                        c = reader.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && !fieldStarted) {
+                    quoted = true;
+                    fieldStarted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = false;
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                    fieldStarted = true;
+                }
+                c = reader.read();
+            }
+        }
+    }
+}
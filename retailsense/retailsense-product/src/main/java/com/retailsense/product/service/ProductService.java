@@ -1,14 +1,38 @@
 package com.retailsense.product.service;
 
+import com.retailsense.common.exception.InsufficientStockException;
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.cache.ProductCache;
+import com.retailsense.product.dto.ProductFilter;
+import com.retailsense.product.dto.ProductListItem;
+import com.retailsense.product.dto.ProductPage;
 import com.retailsense.product.dto.ProductRequest;
+import com.retailsense.product.dto.ProductSort;
+import com.retailsense.product.dto.StockSnapshot;
+import com.retailsense.product.event.ProductChangedEvent;
 import com.retailsense.product.model.Product;
 import com.retailsense.product.repository.ProductRepository;
+import com.retailsense.product.repository.ProductSpecifications;
+import com.retailsense.product.search.ProductSearchIndex;
+import com.retailsense.product.stock.LowStockIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -16,7 +40,14 @@ import java.util.List;
 @Transactional
 public class ProductService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final LowStockIndex lowStockIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersions dataVersions;
 
     /**
      * Get all products
@@ -28,15 +59,24 @@ public class ProductService {
     }
 
     /**
-     * Get product by ID
+     * Get product by ID, from the product cache (a detached copy; no transaction needed on a hit)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Product getProductById(Long id) {
         log.info("Fetching product with id: {}", id);
-        return productRepository.findById(id)
+        return productCache.get(id, productRepository::findById)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
+    /**
+     * Get products by IDs, loading cache misses in a single query (missing IDs are skipped)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        log.info("Fetching {} products by id", ids.size());
+        return productCache.getAll(ids, productRepository::findAllById);
+    }
+
     /**
      * Create new product
      */
@@ -58,6 +98,9 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        productCache.putAfterCommit(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ProductChangedEvent.ChangeType.CREATED));
+        dataVersions.bump(DataVersions.Domain.PRODUCTS);
         log.info("Product created successfully with id: {}", savedProduct.getId());
         return savedProduct;
     }
@@ -68,7 +111,9 @@ public class ProductService {
     public Product updateProduct(Long id, ProductRequest request) {
         log.info("Updating product with id: {}", id);
 
-        Product existingProduct = getProductById(id);
+        // The managed entity, not the cached copy
+        Product existingProduct = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
         // Validate selling price
         if (!request.isSellingPriceValid()) {
@@ -83,6 +128,9 @@ public class ProductService {
         existingProduct.setMinimumThreshold(request.getMinimumThreshold());
 
         Product updatedProduct = productRepository.save(existingProduct);
+        productCache.putAfterCommit(updatedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.UPDATED));
+        dataVersions.bump(DataVersions.Domain.PRODUCTS);
         log.info("Product updated successfully: {}", updatedProduct.getId());
         return updatedProduct;
     }
@@ -98,9 +146,83 @@ public class ProductService {
         }
 
         productRepository.deleteById(id);
+        productCache.evictAfterCommit(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.DELETED));
+        dataVersions.bump(DataVersions.Domain.PRODUCTS);
         log.info("Product deleted successfully: {}", id);
     }
 
+    /**
+     * One page of the filtered product listing as slim rows, using keyset pagination on
+     * (sort key, id) so every page costs the same however deep
+     * @param cursor Opaque token from the previous page (same sort and direction), null for the first page
+     */
+    @Transactional(readOnly = true)
+    public ProductPage getProductPage(ProductFilter filter, String sort, String direction, String cursor, int size) {
+        log.info("Fetching product page: filter={}, sort={} {}, size {}", filter, sort, direction, size);
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ProductSort productSort = ProductSort.from(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+
+        Comparable<?> afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor, productSort, descending);
+            afterId = Long.parseLong(position[2]);
+            afterValue = switch (productSort) {
+                case NAME -> position[3];
+                case PRICE -> new BigDecimal(position[3]);
+                case QUANTITY -> Integer.valueOf(position[3]);
+                case ID -> afterId;
+            };
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<ProductListItem> products = productRepository.findListPage(
+                ProductSpecifications.matching(filter), productSort, descending, afterValue, afterId, size + 1);
+
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = products.subList(0, size);
+            nextCursor = encodeCursor(productSort, descending, products.get(size - 1));
+        }
+
+        return ProductPage.builder()
+                .products(products)
+                .size(products.size())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private String encodeCursor(ProductSort sort, boolean descending, ProductListItem last) {
+        Object value = switch (sort) {
+            case NAME -> last.getName();
+            case PRICE -> last.getPrice().toPlainString();
+            case QUANTITY -> last.getQuantity();
+            case ID -> last.getId();
+        };
+        String position = sort + "|" + (descending ? "desc" : "asc") + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // sort|direction|id|value, where the value (last, so it may contain '|') matches the sort
+    private String[] decodeCursor(String cursor, ProductSort sort, boolean descending) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 4);
+            Long.parseLong(parts[2]);
+            if (!parts[0].equals(sort.name()) || !parts[1].equals(descending ? "desc" : "asc")) {
+                throw new ValidationException("Cursor belongs to a different sort order");
+            }
+            return parts;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
     /**
      * Get products by category
      */
@@ -111,21 +233,45 @@ public class ProductService {
     }
 
     /**
-     * Get low stock products
+     * Get low stock products, in id order, from the low-stock index (SQL until it is built)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Product> getLowStockProducts() {
         log.info("Fetching low stock products");
-        return productRepository.findLowStockProducts();
+        if (!lowStockIndex.isReady()) {
+            return productRepository.findLowStockProducts();
+        }
+        return getProductsByIds(lowStockIndex.lowStockIds()).stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .toList();
     }
 
     /**
-     * Search products by name
+     * Search products by name or category, best matches first (see ProductSearchIndex).
+     * Returns every match unless a limit is given. Until the index has been built, falls
+     * back to a name search in SQL.
      */
-    @Transactional(readOnly = true)
-    public List<Product> searchProducts(String searchTerm) {
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Product> searchProducts(String searchTerm, Integer limit) {
         log.info("Searching products with term: {}", searchTerm);
-        return productRepository.searchByName(searchTerm);
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        int maxResults = limit != null ? limit : Integer.MAX_VALUE;
+
+        if (!productSearchIndex.isReady()) {
+            return productRepository.searchByName(searchTerm).stream()
+                    .limit(maxResults)
+                    .toList();
+        }
+
+        List<Long> ids = productSearchIndex.search(searchTerm, maxResults);
+        Map<Long, Product> products = getProductsByIds(ids).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     /**
@@ -137,42 +283,80 @@ public class ProductService {
         return productRepository.findAllCategories();
     }
 
+    /**
+     * Get a reference to a product without loading it (for foreign keys)
+     */
+    public Product getProductReference(Long id) {
+        return productRepository.getReferenceById(id);
+    }
+
     /**
      * Reduce product stock (called by Sales module)
+     * Single guarded UPDATE, so concurrent sales of the same product can never oversell.
+     * @return product state after the decrement
      */
-    public void reduceStock(Long productId, Integer quantity) {
+    public StockSnapshot reduceStock(Long productId, Integer quantity) {
         log.info("Reducing stock for product id: {} by quantity: {}", productId, quantity);
 
-        Product product = getProductById(productId);
-
-        if (product.getQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + product.getQuantity() + ", Requested: " + quantity);
-        }
+        StockSnapshot snapshot = tryReduceStock(productId, quantity)
+                .orElseThrow(() -> {
+                    // Guard failed - only now read the row to report why
+                    Product product = productRepository.findById(productId)
+                            .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+                    return new InsufficientStockException(product.getQuantity(), quantity);
+                });
 
-        product.setQuantity(product.getQuantity() - quantity);
-        productRepository.save(product);
+        log.info("Stock reduced successfully. New quantity: {}", snapshot.getQuantity());
+        return snapshot;
+    }
 
-        log.info("Stock reduced successfully. New quantity: {}", product.getQuantity());
+    /**
+     * Reduce product stock without throwing when the guard fails, so batch callers
+     * can reject a single line without marking the shared transaction rollback-only
+     * @return product state after the decrement, or empty if stock was insufficient
+     */
+    public Optional<StockSnapshot> tryReduceStock(Long productId, Integer quantity) {
+        Optional<StockSnapshot> snapshot = productRepository.decrementStock(productId, quantity);
+        if (snapshot.isPresent()) {
+            productCache.evictAfterCommit(productId);
+            lowStockIndex.applyAfterCommit(productId, snapshot.get().getQuantity(), snapshot.get().getMinimumThreshold());
+            dataVersions.bump(DataVersions.Domain.PRODUCTS);
+        }
+        return snapshot;
     }
 
     /**
-     * Increase product stock (for restocking)
+     * Increase product stock (for restocking), in a single UPDATE so concurrent sales are
+     * never overwritten
      */
     public void increaseStock(Long productId, Integer quantity) {
         log.info("Increasing stock for product id: {} by quantity: {}", productId, quantity);
 
-        Product product = getProductById(productId);
-        product.setQuantity(product.getQuantity() + quantity);
-        productRepository.save(product);
+        StockSnapshot snapshot = productRepository.incrementStock(productId, quantity)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        productCache.evictAfterCommit(productId);
+        lowStockIndex.applyAfterCommit(productId, snapshot.getQuantity(), snapshot.getMinimumThreshold());
+        dataVersions.bump(DataVersions.Domain.PRODUCTS);
 
-        log.info("Stock increased successfully. New quantity: {}", product.getQuantity());
+        log.info("Stock increased successfully. New quantity: {}", snapshot.getQuantity());
     }
 
     /**
-     * Get count of low stock products
+     * Get count of all products
      */
     @Transactional(readOnly = true)
+    public long getProductCount() {
+        return productRepository.count();
+    }
+
+    /**
+     * Get count of low stock products (see getLowStockProducts)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Long getLowStockCount() {
-        return productRepository.countLowStockProducts();
+        if (!lowStockIndex.isReady()) {
+            return productRepository.countLowStockProducts();
+        }
+        return lowStockIndex.lowStockCount();
     }
 }
\ No newline at end of file
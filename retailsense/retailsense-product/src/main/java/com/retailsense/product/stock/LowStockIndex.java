@@ -0,0 +1,232 @@
+package com.retailsense.product.stock;
+
+import com.retailsense.common.version.DataVersions;
+import com.retailsense.product.dto.StockLevel;
+import com.retailsense.product.event.ProductChangedEvent;
+import com.retailsense.product.event.StockThresholdCrossedEvent;
+import com.retailsense.product.index.RefreshTickets;
+import com.retailsense.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ids of the products at or below their minimum threshold (same rule as
+ * ProductRepository.findLowStockProducts), kept in memory so the low-stock list and count
+ * cost O(result) instead of a table scan. Built at startup; stock updates then hand in the
+ * level their UPDATE returned, and product edits and imports re-read the stock columns
+ * after commit. When a product moves into or out of low stock a StockThresholdCrossedEvent
+ * is published.
+ *
+ * Levels arrive after commit and may do so out of order, so they are ordered by
+ * RefreshTickets. Each takes its ticket while it holds the product's row lock (right after
+ * the UPDATE, or after a FOR SHARE read), so tickets of one product follow its commit order.
+ * The startup build only fills products nothing else has reported. A deleted product leaves
+ * a level with no quantity, so an older level cannot bring it back; it is dropped once every
+ * lower ticket has been applied or rolled back.
+ * isReady() is false until the first build finishes and callers fall back to SQL.
+ */
+@Component
+@Slf4j
+public class LowStockIndex {
+
+    // Quantity null: the product no longer exists
+    private record Level(long ticket, Integer quantity, Integer minimumThreshold) {
+
+        boolean isLow() {
+            return quantity != null && minimumThreshold != null && quantity <= minimumThreshold;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate lockingTransaction;
+
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> lowStock = new ConcurrentSkipListSet<>();
+    // Products whose level has no quantity, updated inside levels.compute
+    private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+
+    private final RefreshTickets tickets = new RefreshTickets();
+    private volatile boolean ready;
+
+    public LowStockIndex(ProductRepository productRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Refreshes run in after-commit callbacks, where the finished transaction is still bound;
+        // not read-only, since PostgreSQL refuses FOR SHARE there
+        this.lockingTransaction = new TransactionTemplate(transactionManager);
+        this.lockingTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        tickets.startBuild();
+        List<StockLevel> rows;
+        try {
+            rows = readOnlyTransaction.execute(status -> productRepository.findAllStockLevels());
+            rows.forEach(row -> apply(RefreshTickets.BUILD, row.getId(), row.getQuantity(), row.getMinimumThreshold()));
+        } finally {
+            finish(List.of(RefreshTickets.BUILD));
+        }
+        ready = true;
+        log.info("Low-stock index built in {} ms ({} products, {} low)",
+                System.currentTimeMillis() - started, rows.size(), lowStock.size());
+    }
+
+    /**
+     * Low-stock product ids, ascending
+     */
+    public List<Long> lowStockIds() {
+        return new ArrayList<>(lowStock);
+    }
+
+    public long lowStockCount() {
+        return lowStock.size();
+    }
+
+    /**
+     * Apply the level a stock UPDATE returned once the current transaction commits (at once
+     * outside a transaction). Call it right after the UPDATE, while the row is still locked.
+     */
+    public void applyAfterCommit(Long productId, Integer quantity, Integer minimumThreshold) {
+        long ticket = tickets.next();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                apply(ticket, productId, quantity, minimumThreshold);
+            } finally {
+                finish(List.of(ticket));
+            }
+            return;
+        }
+
+        ApplyOnCommit pending = (ApplyOnCommit) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new ApplyOnCommit();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.taken.add(ticket);
+        pending.levels.put(productId, new Level(ticket, quantity, minimumThreshold));
+    }
+
+    // Edits can change the threshold, and imports the quantity
+    @Order(DataVersions.BEFORE_BUMP)
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(event.productIds());
+    }
+
+    private void refresh(Collection<Long> productIds) {
+        long[] ticket = {-1};
+        try {
+            List<StockLevel> rows = lockingTransaction.execute(status -> {
+                List<StockLevel> locked = productRepository.findStockLevelsForShare(productIds);
+                ticket[0] = tickets.next();
+                return locked;
+            });
+
+            Set<Long> missing = new HashSet<>(productIds);
+            for (StockLevel row : rows) {
+                missing.remove(row.getId());
+                apply(ticket[0], row.getId(), row.getQuantity(), row.getMinimumThreshold());
+            }
+            missing.forEach(productId -> apply(ticket[0], productId, null, null));
+        } finally {
+            if (ticket[0] > 0) {
+                finish(List.of(ticket[0]));
+            }
+        }
+    }
+
+    // Deleted levels below every outstanding ticket can no longer be overwritten, so they are dropped
+    private void finish(Collection<Long> finished) {
+        long oldest = tickets.finish(finished);
+        for (Long productId : deleted) {
+            levels.computeIfPresent(productId, (id, level) -> {
+                if (level.quantity() != null || level.ticket() >= oldest) {
+                    return level;
+                }
+                deleted.remove(id);
+                return null;
+            });
+        }
+    }
+
+    private void apply(long ticket, Long productId, Integer quantity, Integer minimumThreshold) {
+        Level level = new Level(ticket, quantity, minimumThreshold);
+        Level[] previous = new Level[1];
+        Level current = levels.compute(productId, (id, existing) -> {
+            previous[0] = existing;
+            if (existing != null && existing.ticket() > ticket) {
+                return existing;
+            }
+            // Set membership changes with the level, so the two never disagree
+            if (quantity == null) {
+                deleted.add(id);
+            }
+            if (level.isLow()) {
+                lowStock.add(id);
+            } else {
+                lowStock.remove(id);
+            }
+            return level;
+        });
+
+        // No events for the initial build, or for deleted products
+        boolean wasLow = previous[0] != null && previous[0].isLow();
+        if (!ready || current != level || current.isLow() == wasLow || quantity == null) {
+            return;
+        }
+        log.info("Product {} {} its minimum threshold: quantity {}, threshold {}", productId,
+                current.isLow() ? "fell to" : "recovered above", quantity, minimumThreshold);
+        eventPublisher.publishEvent(new StockThresholdCrossedEvent(productId, quantity, minimumThreshold, current.isLow()));
+    }
+
+    // Levels reported in one transaction, the last per product winning
+    private final class ApplyOnCommit implements TransactionSynchronization {
+
+        private final List<Long> taken = new ArrayList<>();
+        private final Map<Long, Level> levels = new HashMap<>();
+
+        @Override
+        public void afterCommit() {
+            levels.forEach((productId, level) -> apply(level.ticket(), productId, level.quantity(), level.minimumThreshold()));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LowStockIndex.this);
+            finish(taken);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.retailsense.product.service;
+
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.product.dto.ProductImportResponse;
+import com.retailsense.product.service.ProductImportService.CsvRowReader;
+import com.retailsense.product.service.ProductImportService.ImportRow;
+import com.retailsense.product.service.ProductImportService.NdjsonRowReader;
+import com.retailsense.product.service.ProductImportService.Progress;
+import com.retailsense.product.service.ProductImportService.RowReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Upload parsing: rows come back with the line they started on, and a row that cannot be
+ * parsed is reported and skipped without stopping the rows after it.
+ */
+class ProductImportReadersTest {
+
+    private static final String HEADER = "name,category,purchasePrice,sellingPrice,quantity\n";
+
+    private final Progress progress = new Progress();
+
+    @Test
+    void csvReadsQuotedCommasQuotesAndLineBreaks() throws IOException {
+        List<ImportRow> rows = readAll(csv(HEADER
+                + "\"Tea, green\",\"Drinks \"\"hot\"\"\",1.50,2.00,10\n"
+                + "\"Two\nlines\",Snacks,1,2,3\n"
+                + "Last,Snacks,1,2,4\n"));
+
+        assertThat(rows).extracting(ImportRow::line, row -> row.request().getName(), row -> row.request().getCategory())
+                .containsExactly(
+                        tuple(2L, "Tea, green", "Drinks \"hot\""),
+                        tuple(3L, "Two\nlines", "Snacks"),
+                        tuple(5L, "Last", "Snacks"));
+        assertThat(rows.get(0).request().getPurchasePrice()).isEqualByComparingTo(new BigDecimal("1.50"));
+        assertThat(rows.get(0).request().getQuantity()).isEqualTo(10);
+        assertThat(errors()).isEmpty();
+    }
+
+    @Test
+    void csvTakesColumnsInAnyOrderWithOptionalIdAndByteOrderMark() throws IOException {
+        List<ImportRow> rows = readAll(csv("\uFEFFquantity,id,sellingPrice,name,purchasePrice,category,minimumThreshold\r\n"
+                + "7,42,2.50,Crisps,1.25,Snacks,\r\n"
+                + "\r\n"
+                + "8,,2.50,Nuts,1.25,Snacks,3\r\n"));
+
+        assertThat(rows).extracting(ImportRow::line, ImportRow::id, row -> row.request().getName())
+                .containsExactly(tuple(2L, 42L, "Crisps"), tuple(4L, null, "Nuts"));
+        assertThat(rows.get(0).request().getMinimumThreshold()).isNull();
+        assertThat(rows.get(1).request().getMinimumThreshold()).isEqualTo(3);
+        assertThat(rows.get(1).request().getQuantity()).isEqualTo(8);
+    }
+
+    @Test
+    void csvReportsWrongColumnCountsAndCarriesOn() throws IOException {
+        List<ImportRow> rows = readAll(csv(HEADER
+                + "Short,Snacks,1,2\n"
+                + "Long,Snacks,1,2,3,4\n"
+                + "Fine,Snacks,1,2,3\n"));
+
+        assertThat(rows).extracting(ImportRow::line).containsExactly(4L);
+        assertThat(errors()).extracting(ProductImportResponse.RowError::getLine, ProductImportResponse.RowError::getError)
+                .containsExactly(
+                        tuple(2L, "Expected 5 columns but found 4"),
+                        tuple(3L, "Expected 5 columns but found 6"));
+    }
+
+    @Test
+    void csvReportsAnUnterminatedQuoteAtTheLineItStarted() throws IOException {
+        List<ImportRow> rows = readAll(csv(HEADER
+                + "Fine,Snacks,1,2,3\n"
+                + "\"Open,Snacks,1,2,3\n"
+                + "Swallowed,Snacks,1,2,3\n"));
+
+        assertThat(rows).extracting(ImportRow::line).containsExactly(2L);
+        assertThat(errors()).extracting(ProductImportResponse.RowError::getLine, ProductImportResponse.RowError::getError)
+                .containsExactly(tuple(3L, "Unterminated quoted field"));
+    }
+
+    @Test
+    void csvReportsUnparsableNumbers() throws IOException {
+        List<ImportRow> rows = readAll(csv(HEADER
+                + "Bad price,Snacks,abc,2,3\n"
+                + "Bad quantity,Snacks,1,2,3.5\n"));
+
+        assertThat(rows).isEmpty();
+        assertThat(errors()).extracting(ProductImportResponse.RowError::getError)
+                .containsExactly("Invalid number in purchasePrice: abc", "Invalid whole number in quantity: 3.5");
+    }
+
+    @Test
+    void csvRejectsAnEmptyUploadOrMissingColumns() {
+        assertThatThrownBy(() -> readAll(csv("")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("empty");
+        assertThatThrownBy(() -> readAll(csv("name,category,quantity\nTea,Drinks,1\n")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("CSV header is missing columns: purchasePrice, sellingPrice");
+    }
+
+    @Test
+    void ndjsonReadsObjectsAndSkipsBlankLines() throws IOException {
+        List<ImportRow> rows = readAll(ndjson("""
+                {"id":5,"name":"Tea","category":"Drinks","purchasePrice":1.5,"sellingPrice":2,"quantity":10}
+
+                {"name":"Nuts","category":"Snacks","purchasePrice":1,"sellingPrice":2,"quantity":3,"id":null}
+                """));
+
+        assertThat(rows).extracting(ImportRow::line, ImportRow::id, row -> row.request().getName())
+                .containsExactly(tuple(1L, 5L, "Tea"), tuple(3L, null, "Nuts"));
+        assertThat(errors()).isEmpty();
+    }
+
+    @Test
+    void ndjsonReportsBadLinesAndCarriesOn() throws IOException {
+        List<ImportRow> rows = readAll(ndjson("""
+                {"name":"Broken",
+                [1, 2]
+                {"id":1.5,"name":"Tea"}
+                {"name":"Fine","category":"Snacks","purchasePrice":1,"sellingPrice":2,"quantity":3}
+                """));
+
+        assertThat(rows).extracting(ImportRow::line).containsExactly(4L);
+        assertThat(errors()).extracting(ProductImportResponse.RowError::getLine).containsExactly(1L, 2L, 3L);
+        assertThat(errors()).extracting(ProductImportResponse.RowError::getError)
+                .satisfiesExactly(
+                        error -> assertThat(error).startsWith("Invalid JSON: "),
+                        error -> assertThat(error).isEqualTo("Expected a JSON object"),
+                        error -> assertThat(error).isEqualTo("Invalid id: 1.5"));
+    }
+
+    private static RowReader csv(String text) {
+        return new CsvRowReader(new BufferedReader(new StringReader(text)));
+    }
+
+    private static RowReader ndjson(String text) {
+        // Configured like the application's mapper, which ignores unknown properties such as id
+        return new NdjsonRowReader(new BufferedReader(new StringReader(text)), Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    private List<ImportRow> readAll(RowReader reader) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        ImportRow row;
+        while ((row = reader.next(progress)) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<ProductImportResponse.RowError> errors() {
+        return progress.toResponse().getErrors();
+    }
+}
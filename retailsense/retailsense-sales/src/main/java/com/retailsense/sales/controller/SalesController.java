@@ -1,18 +1,25 @@
 package com.retailsense.sales.controller;
 
 import com.retailsense.common.util.SecurityUtils;
+import com.retailsense.sales.dto.BatchSaleResponse;
 import com.retailsense.sales.dto.SaleRequest;
 import com.retailsense.sales.dto.SaleResponse;
+import com.retailsense.sales.dto.SalesPage;
 import com.retailsense.sales.dto.SalesSummary;
+import com.retailsense.sales.service.SalesExportService;
 import com.retailsense.sales.service.SalesService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -24,6 +31,7 @@ import java.util.List;
 public class SalesController {
 
     private final SalesService salesService;
+    private final SalesExportService salesExportService;
 
     @PostMapping
     public ResponseEntity<SaleResponse> recordSale(@Valid @RequestBody SaleRequest request) {
@@ -37,6 +45,15 @@ public class SalesController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchSaleResponse> recordSalesBatch(@RequestBody List<SaleRequest> requests) {
+        log.info("POST /api/sales/batch - Recording {} sales", requests.size());
+
+        String userEmail = SecurityUtils.getCurrentUserEmail();
+        BatchSaleResponse response = salesService.recordSalesBatch(requests, userEmail);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     public ResponseEntity<List<SaleResponse>> getSalesHistory(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
@@ -47,6 +64,40 @@ public class SalesController {
         return ResponseEntity.ok(sales);
     }
 
+    /**
+     * GET /api/sales/page - Sales history one page at a time, newest first
+     * Query params: size (default 50), cursor (nextCursor of the previous page), from/to (optional)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<SalesPage> getSalesPage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        log.info("GET /api/sales/page - from: {}, to: {}, size: {}", from, to, size);
+        return ResponseEntity.ok(salesService.getSalesPage(from, to, cursor, size));
+    }
+
+    /**
+     * GET /api/sales/export - Stream sales history as NDJSON or CSV in constant memory
+     * Query params: format (ndjson|csv), from/to (optional)
+     */
+    @GetMapping("/export")
+    public void exportSales(
+            @RequestParam(defaultValue = SalesExportService.FORMAT_NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response
+    ) throws IOException {
+        log.info("GET /api/sales/export - format: {}, from: {}, to: {}", format, from, to);
+
+        response.setContentType(SalesExportService.contentType(format));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sales." + format + "\"");
+        salesExportService.exportSales(from, to, format, response.getOutputStream());
+    }
+
     @GetMapping("/summary")
     public ResponseEntity<SalesSummary> getSalesSummary(
             @RequestParam(defaultValue = "week") String period
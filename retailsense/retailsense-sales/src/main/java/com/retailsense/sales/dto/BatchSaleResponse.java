@@ -0,0 +1,32 @@
+package com.retailsense.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchSaleResponse {
+    private Integer totalLines;
+    private Integer succeeded;
+    private Integer failed;
+    private List<LineResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class LineResult {
+        private Integer line;
+        private Long productId;
+        private Integer quantitySold;
+        private Boolean success;
+        private Long saleId;
+        private String error;
+    }
+}
@@ -0,0 +1,14 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sales totals for one time bucket (start of the hour, day, week or month).
+ */
+public interface BucketTotals {
+    LocalDateTime getBucket();
+    BigDecimal getRevenue();
+    Long getUnitsSold();
+    Long getTransactions();
+}
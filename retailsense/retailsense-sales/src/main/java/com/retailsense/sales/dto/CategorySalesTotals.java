@@ -0,0 +1,12 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales revenue and catalog size for one category (rollup projection).
+ */
+public interface CategorySalesTotals {
+    String getCategory();
+    BigDecimal getRevenue();
+    Long getProductCount();
+}
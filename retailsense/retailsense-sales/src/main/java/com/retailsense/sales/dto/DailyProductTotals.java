@@ -0,0 +1,16 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales totals for one product on one day (a single rollup row).
+ */
+public interface DailyProductTotals {
+    LocalDate getSaleDay();
+    Long getProductId();
+    BigDecimal getRevenue();
+    Long getUnitsSold();
+    Long getTransactions();
+    BigDecimal getCost();
+}
@@ -0,0 +1,13 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales totals for one day (rollup projection).
+ */
+public interface DailySalesTotals {
+    LocalDate getSaleDay();
+    BigDecimal getRevenue();
+    Long getTransactions();
+}
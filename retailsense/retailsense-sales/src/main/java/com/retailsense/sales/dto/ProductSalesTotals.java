@@ -0,0 +1,17 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales totals for one product (rollup projection).
+ */
+public interface ProductSalesTotals {
+    Long getProductId();
+    String getProductName();
+    String getCategory();
+    BigDecimal getPurchasePrice();
+    BigDecimal getSellingPrice();
+    BigDecimal getRevenue();
+    Long getUnitsSold();
+    Long getTransactions();
+}
@@ -0,0 +1,19 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Revenue, cost and transaction totals for today, the last week and the last month,
+ * computed in one pass over the rollup (conditional aggregation).
+ */
+public interface RevenueSummaryTotals {
+    BigDecimal getTodayRevenue();
+    BigDecimal getTodayCost();
+    Long getTodayTransactions();
+    BigDecimal getWeekRevenue();
+    BigDecimal getWeekCost();
+    Long getWeekTransactions();
+    BigDecimal getMonthRevenue();
+    BigDecimal getMonthCost();
+    Long getMonthTransactions();
+}
@@ -0,0 +1,20 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One sale as written by the streaming export (product and user joined in the same query).
+ */
+public interface SaleExportRow {
+    Long getId();
+    LocalDateTime getSaleDate();
+    Long getProductId();
+    String getProductName();
+    String getProductCategory();
+    Integer getQuantitySold();
+    BigDecimal getSalePrice();
+    BigDecimal getUnitCost();
+    BigDecimal getTotalRevenue();
+    String getUserName();
+}
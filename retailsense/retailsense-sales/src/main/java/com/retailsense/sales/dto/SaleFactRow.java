@@ -0,0 +1,16 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Minimal per-sale facts used to rebuild in-memory aggregates.
+ */
+public interface SaleFactRow {
+    Long getId();
+    LocalDateTime getSaleDate();
+    Long getProductId();
+    Integer getQuantitySold();
+    BigDecimal getTotalRevenue();
+    BigDecimal getTotalCost();
+}
@@ -0,0 +1,18 @@
+package com.retailsense.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesPage {
+    private List<SaleResponse> sales;
+    private Integer size;
+    private String nextCursor;  // null when there are no more pages
+}
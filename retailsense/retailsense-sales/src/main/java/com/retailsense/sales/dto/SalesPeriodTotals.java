@@ -0,0 +1,13 @@
+package com.retailsense.sales.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales totals since a start date, summed over the sales table (no product join).
+ */
+public interface SalesPeriodTotals {
+    BigDecimal getRevenue();
+    BigDecimal getProfit();
+    Long getTransactions();
+    Long getUnitsSold();
+}
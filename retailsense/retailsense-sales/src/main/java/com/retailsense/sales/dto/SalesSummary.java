@@ -14,6 +14,7 @@ import java.math.BigDecimal;
 public class SalesSummary {
     private String period;
     private BigDecimal totalRevenue;
+    private BigDecimal totalProfit;
     private Long totalTransactions;
     private Integer totalUnitsSold;
     private BigDecimal averageTransactionValue;
@@ -0,0 +1,19 @@
+package com.retailsense.sales.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by SalesService for every sale it records, inside the recording transaction.
+ * Listeners that keep derived state should use @TransactionalEventListener so they only
+ * see committed sales.
+ */
+public record SaleRecordedEvent(
+        Long saleId,
+        Long productId,
+        Integer quantitySold,
+        BigDecimal totalRevenue,
+        BigDecimal totalCost,
+        LocalDateTime saleDate
+) {
+}
@@ -8,14 +8,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.Generated;
-import org.hibernate.annotations.GenerationTime;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales", indexes = {
+        @Index(name = "idx_sales_sale_date_id", columnList = "sale_date, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -36,11 +36,21 @@ public class Sale extends BaseEntity {
     @Column(name = "sale_price", nullable = false, precision = 10, scale = 2)
     private BigDecimal salePrice;
 
-    @Column(name = "total_revenue", precision = 10, scale = 2,
-            insertable = false, updatable = false)  // ← Add this
-    @Generated(GenerationTime.ALWAYS)              // ← Add this
+    // Product purchase price when the sale was made, so profit survives later price edits
+    @Column(name = "unit_cost", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitCost;
+
+    // Computed in onCreate() and written with the sale, so they are set whether the table
+    // came from the migrations or from ddl-auto (V7 drops the old generation expressions)
+    @Column(name = "total_revenue", precision = 10, scale = 2, updatable = false)
     private BigDecimal totalRevenue;
 
+    @Column(name = "total_cost", precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalCost;
+
+    @Column(name = "total_profit", precision = 12, scale = 2, updatable = false)
+    private BigDecimal totalProfit;
+
     @Column(name = "sale_date")
     private LocalDateTime saleDate;
 
@@ -52,5 +62,11 @@ public class Sale extends BaseEntity {
         if (totalRevenue == null && salePrice != null && quantitySold != null) {
             totalRevenue = salePrice.multiply(BigDecimal.valueOf(quantitySold));
         }
+        if (totalCost == null && unitCost != null && quantitySold != null) {
+            totalCost = unitCost.multiply(BigDecimal.valueOf(quantitySold));
+        }
+        if (totalProfit == null && totalRevenue != null && totalCost != null) {
+            totalProfit = totalRevenue.subtract(totalCost);
+        }
     }
 }
\ No newline at end of file
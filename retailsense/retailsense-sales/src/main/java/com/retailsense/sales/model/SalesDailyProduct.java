@@ -0,0 +1,57 @@
+package com.retailsense.sales.model;
+
+import com.retailsense.product.model.Product;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily per-product sales rollup, maintained in the same transaction as each sale.
+ * Analytics reads this instead of scanning raw sales.
+ */
+@Entity
+@Table(name = "sales_daily_product")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesDailyProduct {
+
+    @EmbeddedId
+    private Key id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", insertable = false, updatable = false)
+    private Product product;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(nullable = false)
+    private Long transactions;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal cost;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "sale_day", nullable = false)
+        private LocalDate saleDay;
+
+        @Column(name = "product_id", nullable = false)
+        private Long productId;
+    }
+}
@@ -0,0 +1,112 @@
+package com.retailsense.sales.repository;
+
+import com.retailsense.sales.dto.BucketTotals;
+import com.retailsense.sales.dto.CategorySalesTotals;
+import com.retailsense.sales.dto.DailyProductTotals;
+import com.retailsense.sales.dto.DailySalesTotals;
+import com.retailsense.sales.dto.ProductSalesTotals;
+import com.retailsense.sales.dto.RevenueSummaryTotals;
+import com.retailsense.sales.model.SalesDailyProduct;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface SalesDailyProductRepository extends JpaRepository<SalesDailyProduct, SalesDailyProduct.Key> {
+
+    // Add sales to the (day, product) bucket, creating it if needed
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_product (sale_day, product_id, revenue, units_sold, transactions, cost) " +
+            "VALUES (:saleDay, :productId, :revenue, :units, :transactions, :cost) " +
+            "ON CONFLICT (sale_day, product_id) DO UPDATE SET " +
+            "revenue = sales_daily_product.revenue + EXCLUDED.revenue, " +
+            "units_sold = sales_daily_product.units_sold + EXCLUDED.units_sold, " +
+            "transactions = sales_daily_product.transactions + EXCLUDED.transactions, " +
+            "cost = sales_daily_product.cost + EXCLUDED.cost",
+            nativeQuery = true)
+    void accumulate(@Param("saleDay") LocalDate saleDay,
+                    @Param("productId") Long productId,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("units") long units,
+                    @Param("transactions") long transactions,
+                    @Param("cost") BigDecimal cost);
+
+    // Every rollup row, read through a cursor (sketch warm-up)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r.id.saleDay AS saleDay, r.id.productId AS productId, r.revenue AS revenue, " +
+            "r.unitsSold AS unitsSold, r.transactions AS transactions, r.cost AS cost FROM SalesDailyProduct r")
+    Stream<DailyProductTotals> streamAll();
+
+    // One scan, two groupings: per-day rows have a null productId, per-product rows a null saleDay
+    @Query(value = "SELECT sale_day AS \"saleDay\", product_id AS \"productId\", SUM(revenue) AS revenue, " +
+            "CAST(SUM(units_sold) AS bigint) AS \"unitsSold\", CAST(SUM(transactions) AS bigint) AS transactions, " +
+            "SUM(cost) AS cost FROM sales_daily_product GROUP BY GROUPING SETS ((sale_day), (product_id))",
+            nativeQuery = true)
+    List<DailyProductTotals> findDayAndProductTotals();
+
+    // Day, week or month buckets over [from, to), optionally for one category or product
+    @Query(value = "SELECT date_trunc(:granularity, CAST(r.sale_day AS timestamp)) AS bucket, SUM(r.revenue) AS revenue, " +
+            "CAST(SUM(r.units_sold) AS bigint) AS \"unitsSold\", CAST(SUM(r.transactions) AS bigint) AS transactions " +
+            "FROM sales_daily_product r JOIN products p ON p.id = r.product_id " +
+            "WHERE r.sale_day >= :from AND r.sale_day < :to " +
+            "AND (CAST(:category AS varchar) IS NULL OR p.category = :category) " +
+            "AND (CAST(:productId AS bigint) IS NULL OR r.product_id = :productId) " +
+            "GROUP BY 1 ORDER BY 1",
+            nativeQuery = true)
+    List<BucketTotals> findBucketTotals(@Param("granularity") String granularity,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to,
+                                        @Param("category") String category,
+                                        @Param("productId") Long productId);
+
+    @Query("SELECT r.id.saleDay AS saleDay, SUM(r.revenue) AS revenue, SUM(r.transactions) AS transactions " +
+            "FROM SalesDailyProduct r WHERE r.id.saleDay >= :startDay " +
+            "GROUP BY r.id.saleDay ORDER BY r.id.saleDay")
+    List<DailySalesTotals> findDailyTotals(@Param("startDay") LocalDate startDay);
+
+    @Query("SELECT p.id AS productId, p.name AS productName, p.category AS category, " +
+            "p.purchasePrice AS purchasePrice, p.sellingPrice AS sellingPrice, " +
+            "SUM(r.revenue) AS revenue, SUM(r.unitsSold) AS unitsSold, SUM(r.transactions) AS transactions " +
+            "FROM SalesDailyProduct r JOIN r.product p " +
+            "GROUP BY p.id, p.name, p.category, p.purchasePrice, p.sellingPrice")
+    List<ProductSalesTotals> findProductTotals(Sort sort, Limit limit);
+
+    @Query("SELECT p.category AS category, SUM(r.revenue) AS revenue, " +
+            "(SELECT COUNT(p2) FROM Product p2 WHERE p2.category = p.category) AS productCount " +
+            "FROM SalesDailyProduct r JOIN r.product p " +
+            "GROUP BY p.category ORDER BY SUM(r.revenue) DESC")
+    List<CategorySalesTotals> findCategoryTotals();
+
+    // Single scan of the month window; narrower windows are filtered aggregates of the same rows
+    @Query("SELECT " +
+            "COALESCE(SUM(r.revenue) FILTER (WHERE r.id.saleDay >= :today), 0) AS todayRevenue, " +
+            "COALESCE(SUM(r.cost) FILTER (WHERE r.id.saleDay >= :today), 0) AS todayCost, " +
+            "COALESCE(SUM(r.transactions) FILTER (WHERE r.id.saleDay >= :today), 0) AS todayTransactions, " +
+            "COALESCE(SUM(r.revenue) FILTER (WHERE r.id.saleDay >= :weekStart), 0) AS weekRevenue, " +
+            "COALESCE(SUM(r.cost) FILTER (WHERE r.id.saleDay >= :weekStart), 0) AS weekCost, " +
+            "COALESCE(SUM(r.transactions) FILTER (WHERE r.id.saleDay >= :weekStart), 0) AS weekTransactions, " +
+            "COALESCE(SUM(r.revenue), 0) AS monthRevenue, " +
+            "COALESCE(SUM(r.cost), 0) AS monthCost, " +
+            "COALESCE(SUM(r.transactions), 0) AS monthTransactions " +
+            "FROM SalesDailyProduct r WHERE r.id.saleDay >= :monthStart")
+    RevenueSummaryTotals findRevenueSummary(@Param("today") LocalDate today,
+                                            @Param("weekStart") LocalDate weekStart,
+                                            @Param("monthStart") LocalDate monthStart);
+}
@@ -1,18 +1,34 @@
 package com.retailsense.sales.repository;
 
+import com.retailsense.sales.dto.BucketTotals;
+import com.retailsense.sales.dto.SaleExportRow;
+import com.retailsense.sales.dto.SaleFactRow;
+import com.retailsense.sales.dto.SaleResponse;
+import com.retailsense.sales.dto.SalesPeriodTotals;
 import com.retailsense.sales.model.Sale;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface SalesRepository extends JpaRepository<Sale, Long> {
 
+    String SALE_RESPONSE_SELECT =
+            "SELECT new com.retailsense.sales.dto.SaleResponse(s.id, p.id, p.name, p.category, s.quantitySold, " +
+            "s.salePrice, s.totalRevenue, s.saleDate, CAST(NULL AS Integer), u.name) " +
+            "FROM Sale s JOIN s.product p JOIN s.user u ";
+
     List<Sale> findByProductId(Long productId);
 
     List<Sale> findBySaleDateBetween(LocalDateTime start, LocalDateTime end);
@@ -26,6 +42,71 @@ public interface SalesRepository extends JpaRepository<Sale, Long> {
     @Query("SELECT COUNT(s) FROM Sale s WHERE s.saleDate >= :startDate")
     Long countSalesFrom(@Param("startDate") LocalDateTime startDate);
 
+    @Query("SELECT COALESCE(SUM(s.totalRevenue), 0) AS revenue, COALESCE(SUM(s.totalProfit), 0) AS profit, " +
+            "COUNT(s) AS transactions, COALESCE(SUM(s.quantitySold), 0) AS unitsSold " +
+            "FROM Sale s WHERE s.saleDate >= :startDate")
+    SalesPeriodTotals findPeriodTotals(@Param("startDate") LocalDateTime startDate);
+
     @Query("SELECT SUM(s.quantitySold) FROM Sale s WHERE s.product.id = :productId AND s.saleDate >= :startDate")
     Integer getTotalQuantitySold(@Param("productId") Long productId, @Param("startDate") LocalDateTime startDate);
+
+    // Forward-only cursor for the export; rows are projections so the persistence context stays empty
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.id AS id, s.saleDate AS saleDate, p.id AS productId, p.name AS productName, " +
+            "p.category AS productCategory, s.quantitySold AS quantitySold, s.salePrice AS salePrice, " +
+            "s.unitCost AS unitCost, s.totalRevenue AS totalRevenue, u.name AS userName " +
+            "FROM Sale s JOIN s.product p JOIN s.user u " +
+            "WHERE s.saleDate >= :from AND s.saleDate < :to ORDER BY s.saleDate, s.id")
+    Stream<SaleExportRow> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Every sale as a slim fact row, read through a cursor (in-memory analytics warm-up)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.id AS id, s.saleDate AS saleDate, s.product.id AS productId, s.quantitySold AS quantitySold, " +
+            "s.totalRevenue AS totalRevenue, s.totalCost AS totalCost FROM Sale s")
+    Stream<SaleFactRow> streamAllFacts();
+
+    // Sales since a point in time as slim fact rows (live metrics warm-up)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT s.id AS id, s.saleDate AS saleDate, s.product.id AS productId, s.quantitySold AS quantitySold, " +
+            "s.totalRevenue AS totalRevenue, s.totalCost AS totalCost FROM Sale s WHERE s.saleDate >= :from")
+    List<SaleFactRow> findFactsFrom(@Param("from") LocalDateTime from);
+
+    // Which of the given sales the current transaction can see (analytics warm-ups)
+    @Query("SELECT s.id FROM Sale s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Hourly buckets over [from, to) from the sales themselves (the rollup is daily)
+    @Query(value = "SELECT date_trunc('hour', s.sale_date) AS bucket, SUM(s.total_revenue) AS revenue, " +
+            "CAST(SUM(s.quantity_sold) AS bigint) AS \"unitsSold\", COUNT(*) AS transactions " +
+            "FROM sales s JOIN products p ON p.id = s.product_id " +
+            "WHERE s.sale_date >= :from AND s.sale_date < :to " +
+            "AND (CAST(:category AS varchar) IS NULL OR p.category = :category) " +
+            "AND (CAST(:productId AS bigint) IS NULL OR s.product_id = :productId) " +
+            "GROUP BY 1 ORDER BY 1",
+            nativeQuery = true)
+    List<BucketTotals> findHourlyTotals(@Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        @Param("category") String category,
+                                        @Param("productId") Long productId);
+
+    // Sales history as SaleResponse DTOs, product and user joined in the same statement
+    @Query(SALE_RESPONSE_SELECT +
+            "WHERE s.saleDate BETWEEN :from AND :to ORDER BY s.saleDate DESC, s.id DESC")
+    List<SaleResponse> findHistory(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Keyset page (newest first) strictly before the (saleDate, id) cursor; served by idx_sales_sale_date_id
+    @Query(SALE_RESPONSE_SELECT +
+            "WHERE s.saleDate >= :from " +
+            "AND (s.saleDate < :beforeDate OR (s.saleDate = :beforeDate AND s.id < :beforeId)) " +
+            "ORDER BY s.saleDate DESC, s.id DESC")
+    List<SaleResponse> findPageBefore(@Param("from") LocalDateTime from,
+                                      @Param("beforeDate") LocalDateTime beforeDate,
+                                      @Param("beforeId") Long beforeId,
+                                      Limit limit);
 }
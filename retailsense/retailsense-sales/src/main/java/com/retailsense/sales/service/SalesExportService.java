@@ -0,0 +1,136 @@
+package com.retailsense.sales.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retailsense.common.exception.ValidationException;
+import com.retailsense.sales.dto.SaleExportRow;
+import com.retailsense.sales.repository.SalesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams sales history straight from a database cursor to the response,
+ * so memory use stays constant whatever the date range.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class SalesExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String CSV_HEADER =
+            "id,saleDate,productId,productName,productCategory,quantitySold,salePrice,unitCost,totalRevenue,userName";
+
+    private final SalesRepository salesRepository;
+    private final ObjectMapper objectMapper;
+
+    public static String contentType(String format) {
+        return switch (format) {
+            case FORMAT_NDJSON -> "application/x-ndjson";
+            case FORMAT_CSV -> "text/csv";
+            default -> throw new ValidationException("Unsupported export format: " + format + " (use ndjson or csv)");
+        };
+    }
+
+    /**
+     * Write every sale in [from, to) to the output stream
+     * @param from Start of the range (inclusive), null for all history
+     * @param to End of the range (exclusive), null for now
+     * @return number of rows written
+     */
+    public long exportSales(LocalDateTime from, LocalDateTime to, String format, OutputStream out) throws IOException {
+        contentType(format); // validate before touching the database
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        log.info("Exporting sales from {} to {} as {}", start, end, format);
+
+        long rows;
+        try (Stream<SaleExportRow> sales = salesRepository.streamForExport(start, end)) {
+            rows = FORMAT_CSV.equals(format)
+                    ? writeCsv(sales.iterator(), out)
+                    : writeNdjson(sales.iterator(), out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} sales", rows);
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<SaleExportRow> sales, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            while (sales.hasNext()) {
+                SaleExportRow sale = sales.next();
+                json.writeStartObject();
+                json.writeNumberField("id", sale.getId());
+                json.writeStringField("saleDate", String.valueOf(sale.getSaleDate()));
+                json.writeNumberField("productId", sale.getProductId());
+                json.writeStringField("productName", sale.getProductName());
+                json.writeStringField("productCategory", sale.getProductCategory());
+                json.writeNumberField("quantitySold", sale.getQuantitySold());
+                json.writeNumberField("salePrice", sale.getSalePrice());
+                json.writeNumberField("unitCost", sale.getUnitCost());
+                json.writeNumberField("totalRevenue", sale.getTotalRevenue());
+                json.writeStringField("userName", sale.getUserName());
+                json.writeEndObject();
+                rows++;
+            }
+            if (rows > 0) {
+                json.writeRaw('\n');
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<SaleExportRow> sales, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(CSV_HEADER);
+        csv.write('\n');
+        while (sales.hasNext()) {
+            SaleExportRow sale = sales.next();
+            csv.write(sale.getId() + "," + sale.getSaleDate() + "," + sale.getProductId() + ","
+                    + csvField(sale.getProductName()) + "," + csvField(sale.getProductCategory()) + ","
+                    + sale.getQuantitySold() + "," + plain(sale.getSalePrice()) + "," + plain(sale.getUnitCost()) + ","
+                    + plain(sale.getTotalRevenue()) + "," + csvField(sale.getUserName()));
+            csv.write('\n');
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : "";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
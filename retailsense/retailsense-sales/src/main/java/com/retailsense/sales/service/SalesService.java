@@ -1,25 +1,47 @@
 package com.retailsense.sales.service;
 
+import com.retailsense.common.concurrent.SingleFlight;
 import com.retailsense.common.exception.InsufficientStockException;
 import com.retailsense.common.exception.UnauthorizedException;
+import com.retailsense.common.exception.ValidationException;
 import com.retailsense.common.model.User;
+import com.retailsense.common.util.Money;
+import com.retailsense.common.version.DataVersions;
 import com.retailsense.auth.repository.UserRepository;
+import com.retailsense.product.dto.StockSnapshot;
 import com.retailsense.product.model.Product;
 import com.retailsense.product.service.ProductService;
+import com.retailsense.sales.dto.BatchSaleResponse;
 import com.retailsense.sales.dto.SaleRequest;
 import com.retailsense.sales.dto.SaleResponse;
+import com.retailsense.sales.dto.SalesPage;
+import com.retailsense.sales.dto.SalesPeriodTotals;
 import com.retailsense.sales.dto.SalesSummary;
+import com.retailsense.sales.event.SaleRecordedEvent;
 import com.retailsense.sales.model.Sale;
+import com.retailsense.sales.repository.SalesDailyProductRepository;
 import com.retailsense.sales.repository.SalesRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,8 +51,16 @@ import java.util.stream.Collectors;
 public class SalesService {
 
     private final SalesRepository salesRepository;
+    private final SalesDailyProductRepository salesDailyProductRepository;
     private final ProductService productService;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersions dataVersions;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Value("${retailsense.sales.batch.max-lines:5000}")
+    private int maxBatchLines;
 
     /**
      * Record a sale
@@ -46,115 +76,279 @@ public class SalesService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UnauthorizedException("User not found: " + userEmail));
 
-        // Get product
-        Product product = productService.getProductById(request.getProductId());
-
-        // Check stock
-        if (product.getQuantity() < request.getQuantitySold()) {
-            throw new InsufficientStockException(product.getQuantity(), request.getQuantitySold());
-        }
+        // Reduce product stock - one conditional update, fails if stock is insufficient
+        StockSnapshot stock = productService.reduceStock(request.getProductId(), request.getQuantitySold());
 
         // Create sale
         Sale sale = Sale.builder()
-                .product(product)
+                .product(productService.getProductReference(stock.getId()))
                 .user(user)  // Now we have the full User object with ID
                 .quantitySold(request.getQuantitySold())
-                .salePrice(product.getSellingPrice())
+                .salePrice(stock.getSellingPrice())
+                .unitCost(stock.getPurchasePrice())
                 .saleDate(LocalDateTime.now())
                 .build();
 
-
-
         Sale savedSale = salesRepository.save(sale);
 
-        // Reduce product stock
-        productService.reduceStock(product.getId(), request.getQuantitySold());
+        // Keep the daily analytics rollup in step with the sale
+        salesDailyProductRepository.accumulate(
+                savedSale.getSaleDate().toLocalDate(),
+                stock.getId(),
+                savedSale.getTotalRevenue(),
+                savedSale.getQuantitySold(),
+                1,
+                savedSale.getTotalCost());
 
-        log.info("Sale recorded successfully: {} by user: {}", savedSale.getId(), user.getName());
+        eventPublisher.publishEvent(toEvent(savedSale, stock.getId()));
+        dataVersions.bump(DataVersions.Domain.SALES);
 
-        // Get updated product
-        Product updatedProduct = productService.getProductById(product.getId());
+        log.info("Sale recorded successfully: {} by user: {}", savedSale.getId(), user.getName());
 
         return SaleResponse.builder()
                 .id(savedSale.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .productCategory(product.getCategory())
+                .productId(stock.getId())
+                .productName(stock.getName())
+                .productCategory(stock.getCategory())
                 .quantitySold(savedSale.getQuantitySold())
                 .salePrice(savedSale.getSalePrice())
                 .totalRevenue(savedSale.getTotalRevenue())
                 .saleDate(savedSale.getSaleDate())
-                .remainingStock(updatedProduct.getQuantity())
+                .remainingStock(stock.getQuantity())
                 .userName(user.getName())  // Now we can show actual user name
                 .build();
     }
+
+    /**
+     * Record many sales in one transaction (end-of-shift uploads).
+     * Products are resolved in one query, stock is decremented once per product
+     * and the sale rows are inserted together so Hibernate can batch them.
+     * Lines that cannot be recorded are reported individually instead of failing the batch.
+     * @param requests Sale lines in upload order
+     * @param userEmail Email of the user recording the sales (from SecurityContext)
+     * @return Per-line outcome
+     */
+    public BatchSaleResponse recordSalesBatch(List<SaleRequest> requests, String userEmail) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("At least one sale line is required");
+        }
+        if (requests.size() > maxBatchLines) {
+            throw new ValidationException("Batch too large. Maximum lines: " + maxBatchLines);
+        }
+        log.info("Recording batch of {} sales by user: {}", requests.size(), userEmail);
+
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UnauthorizedException("User not found: " + userEmail));
+
+        Set<Long> productIds = requests.stream()
+                .map(SaleRequest::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productService.getProductsByIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // Validate every line against the stock still available after the lines before it
+        List<BatchSaleResponse.LineResult> results = new ArrayList<>(requests.size());
+        Map<Long, Integer> available = new HashMap<>();
+        Map<Long, List<Integer>> acceptedLines = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            SaleRequest line = requests.get(i);
+            BatchSaleResponse.LineResult result = BatchSaleResponse.LineResult.builder()
+                    .line(i)
+                    .productId(line.getProductId())
+                    .quantitySold(line.getQuantitySold())
+                    .success(false)
+                    .build();
+            results.add(result);
+
+            if (line.getProductId() == null || line.getQuantitySold() == null || line.getQuantitySold() < 1) {
+                result.setError("Product ID and a quantity of at least 1 are required");
+                continue;
+            }
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                result.setError("Product not found with id: " + line.getProductId());
+                continue;
+            }
+            int stock = available.computeIfAbsent(product.getId(), id -> product.getQuantity());
+            if (stock < line.getQuantitySold()) {
+                result.setError(new InsufficientStockException(stock, line.getQuantitySold()).getMessage());
+                continue;
+            }
+            available.put(product.getId(), stock - line.getQuantitySold());
+            acceptedLines.computeIfAbsent(product.getId(), id -> new ArrayList<>()).add(i);
+        }
+
+        // One guarded decrement per product, then insert all accepted lines together
+        LocalDateTime saleDate = LocalDateTime.now();
+        List<Sale> sales = new ArrayList<>();
+        List<Integer> saleLines = new ArrayList<>();
+
+        acceptedLines.forEach((productId, lines) -> {
+            int total = lines.stream().mapToInt(i -> requests.get(i).getQuantitySold()).sum();
+            Optional<StockSnapshot> stock = productService.tryReduceStock(productId, total);
+            if (stock.isEmpty()) {
+                lines.forEach(i -> results.get(i).setError("Stock changed while recording batch, please retry"));
+                return;
+            }
+            for (Integer i : lines) {
+                sales.add(Sale.builder()
+                        .product(products.get(productId))
+                        .user(user)
+                        .quantitySold(requests.get(i).getQuantitySold())
+                        .salePrice(stock.get().getSellingPrice())
+                        .unitCost(stock.get().getPurchasePrice())
+                        .saleDate(saleDate)
+                        .build());
+                saleLines.add(i);
+            }
+            salesDailyProductRepository.accumulate(
+                    saleDate.toLocalDate(),
+                    productId,
+                    Money.of(stock.get().getSellingPrice()).times(total).toBigDecimal(),
+                    total,
+                    lines.size(),
+                    Money.of(stock.get().getPurchasePrice()).times(total).toBigDecimal());
+        });
+
+        List<Sale> savedSales = salesRepository.saveAll(sales);
+        salesRepository.flush();
+
+        for (int n = 0; n < savedSales.size(); n++) {
+            Sale saved = savedSales.get(n);
+            BatchSaleResponse.LineResult result = results.get(saleLines.get(n));
+            result.setSuccess(true);
+            result.setSaleId(saved.getId());
+            eventPublisher.publishEvent(toEvent(saved, saved.getProduct().getId()));
+        }
+        if (!savedSales.isEmpty()) {
+            dataVersions.bump(DataVersions.Domain.SALES);
+        }
+
+        int succeeded = savedSales.size();
+        log.info("Batch recorded: {} succeeded, {} failed", succeeded, requests.size() - succeeded);
+
+        return BatchSaleResponse.builder()
+                .totalLines(requests.size())
+                .succeeded(succeeded)
+                .failed(requests.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public List<SaleResponse> getSalesHistory(LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Fetching sales history from {} to {}", startDate, endDate);
 
-        List<Sale> sales;
-        if (startDate != null && endDate != null) {
-            sales = salesRepository.findBySaleDateBetween(startDate, endDate);
-        } else if (startDate != null) {
-            sales = salesRepository.findRecentSales(startDate);
+        // One statement whatever the range: product and user come from the same join
+        return salesRepository.findHistory(
+                startDate != null ? startDate : LocalDateTime.of(1970, 1, 1, 0, 0),
+                endDate != null ? endDate : LocalDateTime.now());
+    }
+
+    /**
+     * Get one page of sales history, newest first, using keyset pagination on (saleDate, id)
+     * so deep pages cost the same as the first one
+     * @param cursor Opaque token from the previous page, null for the first page
+     */
+    @Transactional(readOnly = true)
+    public SalesPage getSalesPage(LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        log.info("Fetching sales page from {} to {}, size {}", from, to, size);
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        LocalDateTime beforeDate;
+        long beforeId;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            beforeDate = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
         } else {
-            sales = salesRepository.findAll();
+            beforeDate = to != null ? to : LocalDateTime.now();
+            beforeId = Long.MAX_VALUE;
         }
 
-        return sales.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        // Fetch one extra row to know whether another page exists
+        List<SaleResponse> sales = salesRepository.findPageBefore(
+                from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0),
+                beforeDate, beforeId, Limit.of(size + 1));
+
+        String nextCursor = null;
+        if (sales.size() > size) {
+            sales = sales.subList(0, size);
+            SaleResponse last = sales.get(size - 1);
+            nextCursor = encodeCursor(last.getSaleDate(), last.getId());
+        }
+
+        return SalesPage.builder()
+                .sales(sales)
+                .size(sales.size())
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    private String encodeCursor(LocalDateTime saleDate, Long id) {
+        String position = saleDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    // Identical concurrent summaries share one query
+    @SingleFlight
     @Transactional(readOnly = true)
     public SalesSummary getSalesSummary(String period) {
         log.info("Calculating sales summary for period: {}", period);
 
         LocalDateTime startDate = getStartDateForPeriod(period);
 
-        BigDecimal totalRevenue = salesRepository.calculateRevenueFrom(startDate);
-        if (totalRevenue == null) totalRevenue = BigDecimal.ZERO;
+        SalesPeriodTotals totals = salesRepository.findPeriodTotals(startDate);
+        Money totalRevenue = Money.of(totals.getRevenue());
+        Long totalTransactions = totals.getTransactions();
 
-        Long totalTransactions = salesRepository.countSalesFrom(startDate);
-
-        List<Sale> sales = salesRepository.findRecentSales(startDate);
-        Integer totalUnitsSold = sales.stream()
-                .mapToInt(Sale::getQuantitySold)
-                .sum();
-
-        BigDecimal avgTransactionValue = totalTransactions > 0
-                ? totalRevenue.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
+        Money avgTransactionValue = totalTransactions > 0
+                ? totalRevenue.dividedBy(totalTransactions)
+                : Money.ZERO;
 
         return SalesSummary.builder()
                 .period(period)
-                .totalRevenue(totalRevenue)
+                .totalRevenue(totalRevenue.toBigDecimal())
+                .totalProfit(totals.getProfit())
                 .totalTransactions(totalTransactions)
-                .totalUnitsSold(totalUnitsSold)
-                .averageTransactionValue(avgTransactionValue)
+                .totalUnitsSold(totals.getUnitsSold().intValue())
+                .averageTransactionValue(avgTransactionValue.toBigDecimal())
                 .build();
     }
 
-    private LocalDateTime getStartDateForPeriod(String period) {
-        return switch (period.toLowerCase()) {
-            case "today" -> LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-            case "week" -> LocalDateTime.now().minusDays(7);
-            case "month" -> LocalDateTime.now().minusDays(30);
-            default -> LocalDateTime.now().minusDays(7);
-        };
+    private SaleRecordedEvent toEvent(Sale sale, Long productId) {
+        return new SaleRecordedEvent(sale.getId(), productId, sale.getQuantitySold(),
+                sale.getTotalRevenue(), sale.getTotalCost(), sale.getSaleDate());
     }
 
-    private SaleResponse mapToResponse(Sale sale) {
-        return SaleResponse.builder()
-                .id(sale.getId())
-                .productId(sale.getProduct().getId())
-                .productName(sale.getProduct().getName())
-                .productCategory(sale.getProduct().getCategory())
-                .quantitySold(sale.getQuantitySold())
-                .salePrice(sale.getSalePrice())
-                .totalRevenue(sale.getTotalRevenue())
-                .saleDate(sale.getSaleDate())
-                .userName("User")
-                .build();
+    /**
+     * Start of the sales summary window: midnight for today, otherwise 7 or 30 days back
+     * truncated to the hour, so the window (and any tag built on it) moves once an hour
+     */
+    public LocalDateTime getStartDateForPeriod(String period) {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        return switch (period.toLowerCase()) {
+            case "today" -> hour.withHour(0);
+            case "week" -> hour.minusDays(7);
+            case "month" -> hour.minusDays(30);
+            default -> hour.minusDays(7);
+        };
     }
 }
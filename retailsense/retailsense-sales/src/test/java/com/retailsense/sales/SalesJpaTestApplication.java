@@ -0,0 +1,15 @@
+package com.retailsense.sales;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+
+/**
+ * Boot configuration for the sales module's slice tests: sales repositories, with the
+ * product and user entities they join.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackages = "com.retailsense")
+public class SalesJpaTestApplication {
+}
@@ -0,0 +1,111 @@
+package com.retailsense.sales.repository;
+
+import com.retailsense.common.model.User;
+import com.retailsense.product.model.Product;
+import com.retailsense.sales.dto.SaleResponse;
+import com.retailsense.sales.model.Sale;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sales history must stay one statement however many sales, products and users it covers
+ * (no lazy loading per row).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SalesRepositoryHistoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Autowired
+    private SalesRepository salesRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void historyIsOneStatementForFewSales() {
+        seed(3, 1, 2);
+
+        assertThat(historyStatements(2)).isEqualTo(1);
+    }
+
+    @Test
+    void historyIsOneStatementForManySales() {
+        seed(5, 3, 60);
+
+        assertThat(historyStatements(60)).isEqualTo(1);
+    }
+
+    // Statements prepared by one history call over every seeded sale, checking each row is complete
+    private long historyStatements(int expectedRows) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<SaleResponse> history = salesRepository.findHistory(START.minusDays(1), START.plusDays(1));
+
+        assertThat(history).hasSize(expectedRows);
+        assertThat(history).allSatisfy(sale -> {
+            assertThat(sale.getProductName()).startsWith("Product ");
+            assertThat(sale.getUserName()).startsWith("User ");
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seed(int productCount, int userCount, int saleCount) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .name("Product " + i)
+                    .category("Category " + (i % 2))
+                    .purchasePrice(new BigDecimal("5.00"))
+                    .sellingPrice(new BigDecimal("8.00"))
+                    .quantity(100)
+                    .minimumThreshold(10)
+                    .build()));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            users.add(entityManager.persist(User.builder()
+                    .email("user" + i + "@example.com")
+                    .passwordHash("hash")
+                    .name("User " + i)
+                    .role(User.Role.USER)
+                    .build()));
+        }
+        for (int i = 0; i < saleCount; i++) {
+            Product product = products.get(i % productCount);
+            entityManager.persist(Sale.builder()
+                    .product(product)
+                    .user(users.get(i % userCount))
+                    .quantitySold(1 + i % 3)
+                    .salePrice(product.getSellingPrice())
+                    .unitCost(product.getPurchasePrice())
+                    .saleDate(START.plusMinutes(i))
+                    .build());
+        }
+        entityManager.flush();
+    }
+}